@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.AccountTable;
+
+/**
+ * Checks that, with write-ahead logging, readers are not blocked while a long write transaction is open.
+ */
+public class DBUtilConcurrencyTest extends AndroidTestCase {
+    private static final int READERS = 4;
+    private static final long WRITE_HOLD_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 5;
+    private static final String UNCOMMITTED_ACCOUNT_NO = "uncommitted-test-account";
+
+    public void testReadersAreNotBlockedByLongWrite() throws Exception {
+        final DBUtil dbUtil = DBUtil.getInstance(getContext(), DBUtil.ConcurrencyMode.WRITE_AHEAD_LOGGING);
+        final SQLiteDatabase db = dbUtil.getWritableDatabase();
+        assertTrue(db.isWriteAheadLoggingEnabled());
+
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch readsDone = new CountDownLatch(READERS);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dbUtil.beginWriteTransaction(db);
+                try {
+                    ContentValues values = new ContentValues();
+                    values.put(AccountTable.COLUMN_ACCOUNT_NO, UNCOMMITTED_ACCOUNT_NO);
+                    values.put(AccountTable.COLUMN_BALANCE, 0L);
+                    db.insert(AccountTable.TABLE_ACCOUNT, null, values);
+                    writeStarted.countDown();
+                    // keep the write transaction open until every reader is done
+                    readsDone.await(WRITE_HOLD_SECONDS, TimeUnit.SECONDS);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    // never marked successful, so the insert is rolled back
+                    db.endTransaction();
+                }
+            }
+        });
+        writer.start();
+        assertTrue(writeStarted.await(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        for (int i = 0; i < READERS; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<String> accountNumbers = new PersistentAccountDAO(getContext()).getAccountNumbersList();
+                        // the reader sees the last committed state, not the open transaction
+                        if (accountNumbers.contains(UNCOMMITTED_ACCOUNT_NO)) {
+                            throw new AssertionError("Uncommitted account is visible to a reader");
+                        }
+                        new PersistentTransactionDAO(getContext()).getPaginatedTransactionLogs(10);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        readsDone.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        boolean readersFinished = readsDone.await(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        writer.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertTrue("Readers were blocked by the open write transaction", readersFinished);
+    }
+}
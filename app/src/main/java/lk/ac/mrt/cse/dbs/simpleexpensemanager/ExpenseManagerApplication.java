@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+import android.app.Application;
+import android.content.Context;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.PersistentExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.ui.MainThreadExecutor;
+
+/**
+ * Owns the single ExpenseManager of the process, created when first asked for. The activity and the fragments look it
+ * up here instead of passing it around in their arguments, so they all share its caches and threads, and it is never
+ * serialized. It lives as long as the process, and is shut down whenever the user interface is hidden, which commits
+ * the postings held back by the write-behind mode before the process may be killed. Its threads and queue start again
+ * with the next call.
+ */
+public class ExpenseManagerApplication extends Application {
+    private ExpenseManager expenseManager;
+
+    /***
+     * Get the ExpenseManager of the application the given context belongs to.
+     *
+     * @param context
+     * @return
+     */
+    public static ExpenseManager getExpenseManager(Context context) {
+        return ((ExpenseManagerApplication) context.getApplicationContext()).getExpenseManager();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ExpenseManager current;
+        synchronized (this) {
+            current = expenseManager;
+        }
+        if (level >= TRIM_MEMORY_UI_HIDDEN && current != null) {
+            current.shutdown();
+        }
+    }
+
+    /***
+     * Get the ExpenseManager, setting up the persistent storage implementation the first time.
+     *
+     * @return
+     */
+    public synchronized ExpenseManager getExpenseManager() {
+        if (expenseManager == null) {
+            // the application context outlives the activities, which the storage must not hold on to
+            expenseManager = new PersistentExpenseManager(this);
+            // deliver the results of the asynchronous calls on the main thread, where the views can be updated
+            expenseManager.setCallbackExecutor(new MainThreadExecutor());
+        }
+        return expenseManager;
+    }
+}
@@ -2,12 +2,35 @@ package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
 
 import android.content.Context;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.TransactionAnalytics.TimeBucket;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.exception.ExpenseManagerException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionApplier;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.CachingAccountDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentAccountDAO;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.PersistentTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlySummary;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionTotals;
 
 public class PersistentExpenseManager extends ExpenseManager{
     private final Context context;
+    // holds postings back to commit them in batches, null unless enabled in the configuration, guarded by this
+    private WriteBehindQueue writeBehindQueue;
+    private TransactionApplier writeBehindApplier;
+    private int writeBehindBatchSize;
+    private int writeBehindDelayMillis;
+    // postings set aside by the queues closed so far, guarded by this
+    private final List<Transaction> rejectedTransactions = new ArrayList<>();
+
     public PersistentExpenseManager(Context context) {
         this.context = context;
         try {
@@ -20,10 +43,136 @@ public class PersistentExpenseManager extends ExpenseManager{
     @Override
     public void setup() throws ExpenseManagerException {
         // create persistent AccountDAO and set the accounts DAO
-        PersistentAccountDAO persistentAccountDAO = new PersistentAccountDAO(context);
+        AccountDAO persistentAccountDAO = new PersistentAccountDAO(context);
+        // cache the most recently used accounts, unless the cache is disabled in the configuration
+        int accountCacheSize = context.getResources().getInteger(R.integer.config_account_cache_size);
+        if (accountCacheSize > 0) {
+            persistentAccountDAO = new CachingAccountDAO(persistentAccountDAO, accountCacheSize);
+        }
         setAccountsDAO(persistentAccountDAO);
-        // create persistent TransactionDAO and set the accounts DAO
+        // create persistent TransactionDAO and set the accounts DAO. The cache applies the postings through the
+        // persistent AccountDAO, so they never reach the account lookup of logTransaction, and the lookup they do
+        // reach also reads the account id under the write lock, which the cache can not answer
         PersistentTransactionDAO persistentTransactionDAO = new PersistentTransactionDAO(context);
         setTransactionsDAO(persistentTransactionDAO);
+        // count and time the DAO calls, if the metrics are enabled in the configuration
+        if (context.getResources().getBoolean(R.bool.config_dao_metrics)) {
+            enableMetrics();
+        }
+        // commit the postings in batches, if write-behind is enabled in the configuration
+        int batchSize = context.getResources().getInteger(R.integer.config_write_behind_batch_size);
+        if (batchSize > 0) {
+            writeBehindApplier = (TransactionApplier) getAccountsDAO();
+            writeBehindBatchSize = batchSize;
+            writeBehindDelayMillis = context.getResources().getInteger(R.integer.config_write_behind_delay_ms);
+            writeBehindQueue = new WriteBehindQueue(writeBehindApplier, writeBehindBatchSize,
+                    writeBehindDelayMillis);
+        }
+    }
+
+    /***
+     * With write-behind enabled, the posting is queued and its account is only checked when the batch is applied.
+     * A posting on an unknown account is then skipped. The caller only learns that the posting was queued; one which
+     * fails to apply later is set aside and can be read with {@link #getRejectedTransactions()}.
+     */
+    @Override
+    protected void postTransaction(Date date, String accountNo, ExpenseType expenseType, long amount)
+            throws InvalidAccountException {
+        synchronized (this) {
+            // the lock keeps shutdown from closing the queue under the posting
+            if (writeBehindQueue != null) {
+                writeBehindQueue.enqueue(date, accountNo, expenseType, amount);
+                return;
+            }
+        }
+        super.postTransaction(date, accountNo, expenseType, amount);
+    }
+
+    @Override
+    public void flush() {
+        WriteBehindQueue queue;
+        synchronized (this) {
+            queue = writeBehindQueue;
+        }
+        if (queue != null) {
+            queue.flush();
+        }
+    }
+
+    /***
+     * Get the number of postings queued by the write-behind mode and not committed yet.
+     *
+     * @return
+     */
+    public synchronized int getQueueDepth() {
+        return writeBehindQueue == null ? 0 : writeBehindQueue.getDepth();
+    }
+
+    /***
+     * Get the postings the write-behind mode set aside because they failed to apply, even on their own.
+     *
+     * @return - a copy of the postings, in the order they were queued
+     */
+    public synchronized List<Transaction> getRejectedTransactions() {
+        List<Transaction> rejected = new ArrayList<>(rejectedTransactions);
+        if (writeBehindQueue != null) {
+            rejected.addAll(writeBehindQueue.getRejectedTransactions());
+        }
+        return rejected;
+    }
+
+    /***
+     * Get the number of postings the write-behind mode set aside so far.
+     *
+     * @return
+     */
+    public synchronized int getRejectedCount() {
+        return rejectedTransactions.size() + (writeBehindQueue == null ? 0 : writeBehindQueue.getRejectedCount());
+    }
+
+    // the reads below flush first, so that they see every posting made before them
+
+    @Override
+    public List<Transaction> getTransactionLogs() {
+        flush();
+        return super.getTransactionLogs();
+    }
+
+    @Override
+    public TransactionLogView getTransactionLogsView() {
+        flush();
+        return super.getTransactionLogsView();
+    }
+
+    @Override
+    public List<Transaction> getTransactionLogsBefore(long transactionId, int limit) {
+        flush();
+        return super.getTransactionLogsBefore(transactionId, limit);
+    }
+
+    @Override
+    public List<MonthlySummary> getMonthlySummary(String accountNo) {
+        flush();
+        return super.getMonthlySummary(accountNo);
+    }
+
+    @Override
+    public TransactionTotals computeTotals(TimeBucket timeBucket) throws ExpenseManagerException {
+        flush();
+        return super.computeTotals(timeBucket);
+    }
+
+    /***
+     * Commit the queued postings before stopping the threads. Like the threads, the write-behind queue is started
+     * again for the postings made afterwards.
+     */
+    @Override
+    public synchronized void shutdown() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.close();
+            rejectedTransactions.addAll(writeBehindQueue.getRejectedTransactions());
+            writeBehindQueue = new WriteBehindQueue(writeBehindApplier, writeBehindBatchSize, writeBehindDelayMillis);
+        }
+        super.shutdown();
     }
 }
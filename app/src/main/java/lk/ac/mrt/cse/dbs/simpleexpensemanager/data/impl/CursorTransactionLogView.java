@@ -0,0 +1,36 @@
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import android.database.Cursor;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * A TransactionLogView backed by an open cursor over the transaction table. A row is only decoded when get is called
+ * for it, and the decoded rows are kept in the bounded window of WindowedTransactionLogView. SQLite itself keeps the
+ * cursor in windows of raw rows and refills them as needed.
+ */
+class CursorTransactionLogView extends WindowedTransactionLogView {
+    private final Cursor cursor;
+    private final RowMapper<Transaction> mapper;
+
+    /**
+     * Create a view over the given cursor, which it takes ownership of. The cursor must return the rows in the order
+     * of insertion. Counting fills the first window of the cursor, on the thread opening the view.
+     */
+    CursorTransactionLogView(Cursor cursor, RowMapper<Transaction> mapper, int windowSize) {
+        super(cursor.getCount(), windowSize);
+        this.cursor = cursor;
+        this.mapper = mapper;
+    }
+
+    @Override
+    protected Transaction readRow(int position) {
+        cursor.moveToPosition(position);
+        return mapper.mapRow(cursor);
+    }
+
+    @Override
+    protected void release() {
+        cursor.close();
+    }
+}
@@ -1,70 +1,371 @@
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.support.annotation.Nullable;
 
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.AccountTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.MonthlySummaryTable;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.TransactionTable;
 
 // referenced documentation https://developer.android.com/training/data-storage/sqlite#java
 public class DBUtil extends SQLiteOpenHelper {
     // database version to track changes to schema
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 6;
+    // number of rows a migration cursor reads at a time
+    private static final int MIGRATION_PAGE_SIZE = 500;
     private static final String DATABASE_NAME = "200694G.db";
-    // make it singleton
-    private static DBUtil dbUtil = null;
+    // make it singleton, volatile so that the instance is safely published to every thread
+    private static volatile DBUtil dbUtil = null;
 
-    private DBUtil(@Nullable Context context) {
+    /**
+     * How concurrent access to the database is handled.
+     */
+    public enum ConcurrencyMode {
+        /**
+         * The default rollback journal, where a writer blocks every reader and the other way round.
+         */
+        ROLLBACK_JOURNAL,
+        /**
+         * Write-ahead logging, where readers run in parallel on their own connections while a single writer at a
+         * time commits on the primary connection.
+         */
+        WRITE_AHEAD_LOGGING
+    }
+
+    private final ConcurrencyMode concurrencyMode;
+    // the insert, update and delete statements of the DAOs, compiled once per opened database
+    private final StatementCache statementCache = new StatementCache();
+
+    private DBUtil(@Nullable Context context, ConcurrencyMode concurrencyMode) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.concurrencyMode = concurrencyMode;
+        setWriteAheadLoggingEnabled(concurrencyMode == ConcurrencyMode.WRITE_AHEAD_LOGGING);
     }
+
     public static DBUtil getInstance(@Nullable Context context){
-        if(dbUtil == null){
-            dbUtil = new DBUtil(context);
+        return getInstance(context, ConcurrencyMode.WRITE_AHEAD_LOGGING);
+    }
+
+    /**
+     * Get the single instance, creating it with the given concurrency mode if it does not exist yet. The mode of an
+     * existing instance is not changed.
+     */
+    public static DBUtil getInstance(@Nullable Context context, ConcurrencyMode concurrencyMode){
+        DBUtil instance = dbUtil;
+        if(instance == null){
+            synchronized (DBUtil.class) {
+                instance = dbUtil;
+                if (instance == null) {
+                    instance = new DBUtil(context, concurrencyMode);
+                    dbUtil = instance;
+                }
+            }
         }
-        return dbUtil;
+        return instance;
+    }
+
+    public ConcurrencyMode getConcurrencyMode() {
+        return concurrencyMode;
+    }
+
+    /**
+     * Begin a write transaction on the given database. With write-ahead logging the transaction is started in
+     * IMMEDIATE mode, which takes the write lock up front but lets readers carry on with the last committed state.
+     */
+    public void beginWriteTransaction(SQLiteDatabase sqLiteDatabase) {
+        if (concurrencyMode == ConcurrencyMode.WRITE_AHEAD_LOGGING) {
+            sqLiteDatabase.beginTransactionNonExclusive();
+        } else {
+            sqLiteDatabase.beginTransaction();
+        }
+    }
+
+    /**
+     * Get the compiled statement of the given SQL, compiling it only the first time. The statement must be used
+     * inside a write transaction begun by beginWriteTransaction, and must not be closed by the caller.
+     */
+    SQLiteStatement getStatement(SQLiteDatabase sqLiteDatabase, String sql) {
+        return statementCache.get(sqLiteDatabase, sql);
+    }
+
+    /**
+     * Get the number of statements compiled by getStatement.
+     */
+    public long getCompiledStatementCount() {
+        return statementCache.getCompiledCount();
+    }
+
+    /**
+     * Get the number of times getStatement returned an already compiled statement.
+     */
+    public long getReusedStatementCount() {
+        return statementCache.getReusedCount();
+    }
+
+    @Override
+    public synchronized void close() {
+        statementCache.clear();
+        super.close();
     }
 
     @Override
     public void onCreate(SQLiteDatabase sqLiteDatabase) {
+        createAccountTable(sqLiteDatabase);
+        createTransactionTable(sqLiteDatabase);
+        createTransactionIndexes(sqLiteDatabase);
+        createMonthlySummaryTable(sqLiteDatabase);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+        // apply the migrations one version at a time, keeping the existing data
+        if (oldVersion < 2) {
+            migrateDatesToEpochDays(sqLiteDatabase);
+        }
+        // the indexes added by version 3 are created along with the transaction table rebuilt by version 6
+        if (oldVersion < 4) {
+            migrateAmountsToCents(sqLiteDatabase);
+        }
+        // the monthly summary added by version 5 is derived from the log, so version 6 creates it keyed by account id
+        // in place of any keyed by account number, and fills it again
+        if (oldVersion < 6) {
+            migrateToAccountIds(sqLiteDatabase);
+            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + MonthlySummaryTable.TABLE_MONTHLY_SUMMARY);
+            createMonthlySummaryTable(sqLiteDatabase);
+            rebuildMonthlySummary(sqLiteDatabase);
+        }
+    }
+
+    @Override
+    public void onDowngrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+        // downgrade policy is to simply to discard the data and start over
+        final String SQL_DELETE_ENTRIES_ACCOUNT_TABLE =
+                "DROP TABLE IF EXISTS " + AccountTable.TABLE_ACCOUNT;
+        sqLiteDatabase.execSQL(SQL_DELETE_ENTRIES_ACCOUNT_TABLE);
+        final String SQL_DELETE_ENTRIES_TRANSACTION_TABLE =
+                "DROP TABLE IF EXISTS " + TransactionTable.TABLE_TRANSACTION;
+        sqLiteDatabase.execSQL(SQL_DELETE_ENTRIES_TRANSACTION_TABLE);
+        final String SQL_DELETE_ENTRIES_MONTHLY_SUMMARY_TABLE =
+                "DROP TABLE IF EXISTS " + MonthlySummaryTable.TABLE_MONTHLY_SUMMARY;
+        sqLiteDatabase.execSQL(SQL_DELETE_ENTRIES_MONTHLY_SUMMARY_TABLE);
+        onCreate(sqLiteDatabase);
+    }
+
+    /**
+     * Recompute the monthly summary table from the whole transaction log, for example after rows of the log were
+     * changed outside of the DAOs. The summary is replaced in a single transaction.
+     */
+    public void rebuildMonthlySummary() {
+        SQLiteDatabase sqLiteDatabase = getWritableDatabase();
+        beginWriteTransaction(sqLiteDatabase);
+        try {
+            rebuildMonthlySummary(sqLiteDatabase);
+            sqLiteDatabase.setTransactionSuccessful();
+        } finally {
+            sqLiteDatabase.endTransaction();
+        }
+    }
+
+    private void rebuildMonthlySummary(SQLiteDatabase sqLiteDatabase) {
+        sqLiteDatabase.execSQL("DELETE FROM " + MonthlySummaryTable.TABLE_MONTHLY_SUMMARY);
+        // an epoch day times the seconds in a day is the UTC midnight of the same calendar date
+        final String SQL_INSERT_MONTHLY_SUMMARY = "INSERT INTO " +
+                MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + " (" +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + ", " +
+                MonthlySummaryTable.COLUMN_MONTH + ", " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE + ", " +
+                MonthlySummaryTable.COLUMN_TOTAL + ", " +
+                MonthlySummaryTable.COLUMN_COUNT + ") SELECT " +
+                TransactionTable.COLUMN_ACCOUNT_ID + ", " +
+                "CAST(strftime('%Y%m', " + TransactionTable.COLUMN_DATE + " * 86400, 'unixepoch') AS INTEGER) AS m, " +
+                TransactionTable.COLUMN_EXPENSE_TYPE + ", " +
+                "SUM(" + TransactionTable.COLUMN_AMOUNT + "), COUNT(*) FROM " +
+                TransactionTable.TABLE_TRANSACTION + " WHERE " +
+                TransactionTable.COLUMN_DATE + " IS NOT NULL GROUP BY " +
+                TransactionTable.COLUMN_ACCOUNT_ID + ", m, " +
+                TransactionTable.COLUMN_EXPENSE_TYPE;
+        sqLiteDatabase.execSQL(SQL_INSERT_MONTHLY_SUMMARY);
+    }
+
+    private void createAccountTable(SQLiteDatabase sqLiteDatabase) {
         final String SQL_CREATE_ENTRIES_ACCOUNT_TABLE =
                 "CREATE TABLE " + AccountTable.TABLE_ACCOUNT
                         + "(" +
-                        AccountTable.COLUMN_ACCOUNT_NO + " VARCHAR(50) PRIMARY KEY NOT NULL," +
+                        AccountTable.COLUMN_ACCOUNT_ID + " INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL," +
+                        AccountTable.COLUMN_ACCOUNT_NO + " VARCHAR(50) UNIQUE NOT NULL," +
                         AccountTable.COLUMN_BANK_NAME + " VARCHAR(255)," +
                         AccountTable.COLUMN_ACCOUNT_HOLDER_NAME + " VARCHAR(255)," +
-                        AccountTable.COLUMN_BALANCE + " NUMERIC(10,2)" +
+                        AccountTable.COLUMN_BALANCE + " INTEGER" +
                         ")";
         sqLiteDatabase.execSQL(SQL_CREATE_ENTRIES_ACCOUNT_TABLE);
+    }
+
+    private void createTransactionTable(SQLiteDatabase sqLiteDatabase) {
         final String SQL_CREATE_ENTRIES_TRANSACTION_TABLE =
                 "CREATE TABLE " + TransactionTable.TABLE_TRANSACTION
                         + "(" +
                         TransactionTable.COLUMN_TRANSACTION_ID + " INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL," +
-                        TransactionTable.COLUMN_DATE + " DATE," +
+                        TransactionTable.COLUMN_DATE + " INTEGER," +
                         TransactionTable.COLUMN_EXPENSE_TYPE + " VARCHAR(255)," +
-                        TransactionTable.COLUMN_AMOUNT + " NUMERIC(10,2)," +
-                        TransactionTable.COLUMN_ACCOUNT_NO + " VARCHAR(50)," +
-                        "FOREIGN KEY(" + TransactionTable.COLUMN_ACCOUNT_NO + ") REFERENCES " +
-                        AccountTable.TABLE_ACCOUNT + "(" + AccountTable.COLUMN_ACCOUNT_NO + ")" +
+                        TransactionTable.COLUMN_AMOUNT + " INTEGER," +
+                        TransactionTable.COLUMN_ACCOUNT_ID + " INTEGER," +
+                        "FOREIGN KEY(" + TransactionTable.COLUMN_ACCOUNT_ID + ") REFERENCES " +
+                        AccountTable.TABLE_ACCOUNT + "(" + AccountTable.COLUMN_ACCOUNT_ID + ")" +
                         " ON DELETE CASCADE )";
         sqLiteDatabase.execSQL(SQL_CREATE_ENTRIES_TRANSACTION_TABLE);
+    }
+
+    /**
+     * Version 6 gives every account an integer id, which the transaction log references instead of repeating the
+     * account number on every row. SQLite can not change a primary key in place, so both tables are renamed, created
+     * again and filled from the old ones, keeping the transaction ids. Transactions of accounts which no longer exist
+     * are dropped, as the declared ON DELETE CASCADE would have done.
+     */
+    private void migrateToAccountIds(SQLiteDatabase sqLiteDatabase) {
+        final String LEGACY_ACCOUNT_TABLE = AccountTable.TABLE_ACCOUNT + "Legacy";
+        final String LEGACY_TRANSACTION_TABLE = TransactionTable.TABLE_TRANSACTION + "Legacy";
+        sqLiteDatabase.execSQL("ALTER TABLE " + TransactionTable.TABLE_TRANSACTION +
+                " RENAME TO " + LEGACY_TRANSACTION_TABLE);
+        sqLiteDatabase.execSQL("ALTER TABLE " + AccountTable.TABLE_ACCOUNT +
+                " RENAME TO " + LEGACY_ACCOUNT_TABLE);
+        createAccountTable(sqLiteDatabase);
+        createTransactionTable(sqLiteDatabase);
 
+        final String SQL_COPY_ACCOUNTS = "INSERT INTO " +
+                AccountTable.TABLE_ACCOUNT + " (" +
+                AccountTable.COLUMN_ACCOUNT_NO + ", " +
+                AccountTable.COLUMN_BANK_NAME + ", " +
+                AccountTable.COLUMN_ACCOUNT_HOLDER_NAME + ", " +
+                AccountTable.COLUMN_BALANCE + ") SELECT " +
+                AccountTable.COLUMN_ACCOUNT_NO + ", " +
+                AccountTable.COLUMN_BANK_NAME + ", " +
+                AccountTable.COLUMN_ACCOUNT_HOLDER_NAME + ", " +
+                AccountTable.COLUMN_BALANCE + " FROM " +
+                LEGACY_ACCOUNT_TABLE + " ORDER BY rowid";
+        sqLiteDatabase.execSQL(SQL_COPY_ACCOUNTS);
+        final String SQL_COPY_TRANSACTIONS = "INSERT INTO " +
+                TransactionTable.TABLE_TRANSACTION + " (" +
+                TransactionTable.COLUMN_TRANSACTION_ID + ", " +
+                TransactionTable.COLUMN_DATE + ", " +
+                TransactionTable.COLUMN_EXPENSE_TYPE + ", " +
+                TransactionTable.COLUMN_AMOUNT + ", " +
+                TransactionTable.COLUMN_ACCOUNT_ID + ") SELECT t." +
+                TransactionTable.COLUMN_TRANSACTION_ID + ", t." +
+                TransactionTable.COLUMN_DATE + ", t." +
+                TransactionTable.COLUMN_EXPENSE_TYPE + ", t." +
+                TransactionTable.COLUMN_AMOUNT + ", a." +
+                AccountTable.COLUMN_ACCOUNT_ID + " FROM " +
+                LEGACY_TRANSACTION_TABLE + " t JOIN " +
+                AccountTable.TABLE_ACCOUNT + " a ON a." +
+                AccountTable.COLUMN_ACCOUNT_NO + " = t." +
+                TransactionTable.COLUMN_ACCOUNT_NO;
+        sqLiteDatabase.execSQL(SQL_COPY_TRANSACTIONS);
+
+        // the old indexes go with the old tables, which frees their names for the new ones
+        sqLiteDatabase.execSQL("DROP TABLE " + LEGACY_TRANSACTION_TABLE);
+        sqLiteDatabase.execSQL("DROP TABLE " + LEGACY_ACCOUNT_TABLE);
+        createTransactionIndexes(sqLiteDatabase);
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
-        // upgrade policy is to simply to discard the data and start over
-        final String SQL_DELETE_ENTRIES_ACCOUNT_TABLE =
-                "DROP TABLE IF EXISTS " + AccountTable.TABLE_ACCOUNT;
-        sqLiteDatabase.execSQL(SQL_DELETE_ENTRIES_ACCOUNT_TABLE);
-        final String SQL_DELETE_ENTRIES_TRANSACTION_TABLE =
-                "DROP TABLE IF EXISTS " + TransactionTable.TABLE_TRANSACTION;
-        sqLiteDatabase.execSQL(SQL_DELETE_ENTRIES_TRANSACTION_TABLE);
-        onCreate(sqLiteDatabase);
+    /**
+     * Version 5 adds the monthly summary table, which holds the total and count of the transactions of each type per
+     * account and month, keyed by account id since version 6.
+     */
+    private void createMonthlySummaryTable(SQLiteDatabase sqLiteDatabase) {
+        final String SQL_CREATE_ENTRIES_MONTHLY_SUMMARY_TABLE =
+                "CREATE TABLE IF NOT EXISTS " + MonthlySummaryTable.TABLE_MONTHLY_SUMMARY
+                        + "(" +
+                        MonthlySummaryTable.COLUMN_ACCOUNT_ID + " INTEGER NOT NULL," +
+                        MonthlySummaryTable.COLUMN_MONTH + " INTEGER NOT NULL," +
+                        MonthlySummaryTable.COLUMN_EXPENSE_TYPE + " VARCHAR(255) NOT NULL," +
+                        MonthlySummaryTable.COLUMN_TOTAL + " INTEGER NOT NULL," +
+                        MonthlySummaryTable.COLUMN_COUNT + " INTEGER NOT NULL," +
+                        "PRIMARY KEY(" + MonthlySummaryTable.COLUMN_ACCOUNT_ID + ", " +
+                        MonthlySummaryTable.COLUMN_MONTH + ", " +
+                        MonthlySummaryTable.COLUMN_EXPENSE_TYPE + "))";
+        sqLiteDatabase.execSQL(SQL_CREATE_ENTRIES_MONTHLY_SUMMARY_TABLE);
     }
-    @Override
-    public void onDowngrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
-        onUpgrade(sqLiteDatabase, oldVersion, newVersion);
+
+    /**
+     * Version 4 stores balances and amounts as an integer number of cents instead of a decimal. The declared column
+     * types of an existing database stay NUMERIC, which keeps integer values as they are.
+     */
+    private void migrateAmountsToCents(SQLiteDatabase sqLiteDatabase) {
+        final String SQL_UPDATE_BALANCES = "UPDATE " +
+                AccountTable.TABLE_ACCOUNT + " SET " +
+                AccountTable.COLUMN_BALANCE + " = CAST(ROUND(" +
+                AccountTable.COLUMN_BALANCE + " * 100) AS INTEGER)";
+        sqLiteDatabase.execSQL(SQL_UPDATE_BALANCES);
+        final String SQL_UPDATE_AMOUNTS = "UPDATE " +
+                TransactionTable.TABLE_TRANSACTION + " SET " +
+                TransactionTable.COLUMN_AMOUNT + " = CAST(ROUND(" +
+                TransactionTable.COLUMN_AMOUNT + " * 100) AS INTEGER)";
+        sqLiteDatabase.execSQL(SQL_UPDATE_AMOUNTS);
+    }
+
+    /**
+     * The indexes used by the per-account and date range queries on the transaction log, added by version 3 and keyed
+     * by account id since version 6.
+     */
+    private void createTransactionIndexes(SQLiteDatabase sqLiteDatabase) {
+        final String SQL_CREATE_INDEX_ACCOUNT_ID_DATE =
+                "CREATE INDEX IF NOT EXISTS " + TransactionTable.INDEX_ACCOUNT_ID_DATE + " ON " +
+                        TransactionTable.TABLE_TRANSACTION + "(" +
+                        TransactionTable.COLUMN_ACCOUNT_ID + ", " +
+                        TransactionTable.COLUMN_DATE + ")";
+        sqLiteDatabase.execSQL(SQL_CREATE_INDEX_ACCOUNT_ID_DATE);
+        final String SQL_CREATE_INDEX_DATE =
+                "CREATE INDEX IF NOT EXISTS " + TransactionTable.INDEX_DATE + " ON " +
+                        TransactionTable.TABLE_TRANSACTION + "(" +
+                        TransactionTable.COLUMN_DATE + ")";
+        sqLiteDatabase.execSQL(SQL_CREATE_INDEX_DATE);
+    }
+
+    /**
+     * Version 2 stores the transaction date as an integer epoch day instead of a dd-MM-yyyy string. The rows are read
+     * in pages of ascending transaction ids, so the cursor holds one page at a time. Paging only bounds the memory:
+     * every page runs inside the single transaction SQLiteOpenHelper opens around onUpgrade, so the whole upgrade is
+     * committed at once, and an upgrade which fails or is killed leaves the old version to be upgraded again from the
+     * start on the next open. A date which cannot be parsed is set to NULL.
+     */
+    private void migrateDatesToEpochDays(SQLiteDatabase sqLiteDatabase) {
+        final String SQL_SELECT_DATES = "SELECT " +
+                TransactionTable.COLUMN_TRANSACTION_ID + ", " +
+                TransactionTable.COLUMN_DATE + " FROM " +
+                TransactionTable.TABLE_TRANSACTION + " WHERE " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " > ? ORDER BY " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " LIMIT " + MIGRATION_PAGE_SIZE;
+        final String SQL_UPDATE_DATE = "UPDATE " +
+                TransactionTable.TABLE_TRANSACTION + " SET " +
+                TransactionTable.COLUMN_DATE + " = ? WHERE " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " = ?";
+        SQLiteStatement updateStatement = sqLiteDatabase.compileStatement(SQL_UPDATE_DATE);
+        try {
+            long lastTransactionId = 0;
+            int converted;
+            do {
+                converted = 0;
+                Cursor cursor = sqLiteDatabase.rawQuery(SQL_SELECT_DATES,
+                        new String[]{String.valueOf(lastTransactionId)});
+                while (cursor.moveToNext()) {
+                    lastTransactionId = cursor.getLong(0);
+                    try {
+                        updateStatement.bindLong(1, DateCodec.parseLegacyDate(cursor.getString(1)));
+                    } catch (IllegalArgumentException e) {
+                        updateStatement.bindNull(1);
+                    }
+                    updateStatement.bindLong(2, lastTransactionId);
+                    updateStatement.executeUpdateDelete();
+                    converted++;
+                }
+                cursor.close();
+            } while (converted == MIGRATION_PAGE_SIZE);
+        } finally {
+            updateStatement.close();
+        }
     }
 }
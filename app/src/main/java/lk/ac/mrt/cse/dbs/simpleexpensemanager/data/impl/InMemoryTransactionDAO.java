@@ -1,59 +0,0 @@
-/*
- * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *                  http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- *
- */
-
-package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
-
-import java.util.Date;
-import java.util.LinkedList;
-import java.util.List;
-
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
-
-/**
- * This is an In-Memory implementation of TransactionDAO interface. This is not a persistent storage. All the
- * transaction logs are stored in a LinkedList in memory.
- */
-public class InMemoryTransactionDAO implements TransactionDAO {
-    private final List<Transaction> transactions;
-
-    public InMemoryTransactionDAO() {
-        transactions = new LinkedList<>();
-    }
-
-    @Override
-    public void logTransaction(Date date, String accountNo, ExpenseType expenseType, double amount) {
-        Transaction transaction = new Transaction(date, accountNo, expenseType, amount);
-        transactions.add(transaction);
-    }
-
-    @Override
-    public List<Transaction> getAllTransactionLogs() {
-        return transactions;
-    }
-
-    @Override
-    public List<Transaction> getPaginatedTransactionLogs(int limit) {
-        int size = transactions.size();
-        if (size <= limit) {
-            return transactions;
-        }
-        // return the last <code>limit</code> number of transaction logs
-        return transactions.subList(size - limit, size);
-    }
-
-}
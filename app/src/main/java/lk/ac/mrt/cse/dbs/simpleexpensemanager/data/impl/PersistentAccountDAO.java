@@ -3,22 +3,47 @@
  */
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionApplier;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.DuplicateAccountException;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.AccountTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.MonthlySummaryTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.TransactionTable;
 
-public  class PersistentAccountDAO implements AccountDAO {
+public  class PersistentAccountDAO implements AccountDAO, TransactionApplier {
+    private static final String TAG = "PersistentAccountDAO";
+    // the columns read by AccountMapper
+    private static final String SQL_SELECT_ACCOUNTS = "SELECT " +
+            AccountTable.COLUMN_ACCOUNT_NO + ", " +
+            AccountTable.COLUMN_BANK_NAME + ", " +
+            AccountTable.COLUMN_ACCOUNT_HOLDER_NAME + ", " +
+            AccountTable.COLUMN_BALANCE + " FROM " +
+            AccountTable.TABLE_ACCOUNT;
+    private static final String SQL_SELECT_BALANCE = "SELECT " +
+            AccountTable.COLUMN_BALANCE + ", " +
+            AccountTable.COLUMN_ACCOUNT_ID + " FROM " +
+            AccountTable.TABLE_ACCOUNT + " WHERE " +
+            AccountTable.COLUMN_ACCOUNT_NO + " = ?";
+    private static final String SQL_UPDATE_BALANCE = "UPDATE " +
+            AccountTable.TABLE_ACCOUNT + " SET " +
+            AccountTable.COLUMN_BALANCE + " = ? WHERE " +
+            AccountTable.COLUMN_ACCOUNT_ID + " = ?";
     private final DBUtil dbUtil;
 
     public PersistentAccountDAO(Context context) {
@@ -39,8 +64,8 @@ public  class PersistentAccountDAO implements AccountDAO {
                 AccountTable.TABLE_ACCOUNT ;
         Cursor cursor = db.rawQuery(SQL_SELECT_ACCOUNT_NUMBERS, null);
         while(cursor.moveToNext()) {
-            String accountNo = cursor.getString(cursor.getColumnIndexOrThrow(AccountTable.COLUMN_ACCOUNT_NO));
-            accountNumberList.add(accountNo);
+            // the only column selected
+            accountNumberList.add(cursor.getString(0));
         }
         cursor.close();
         return accountNumberList;
@@ -53,21 +78,9 @@ public  class PersistentAccountDAO implements AccountDAO {
  */
     @Override
     public List<Account> getAccountsList() {
-        List<Account> accountInfoList = new ArrayList<>();
         SQLiteDatabase db = dbUtil.getReadableDatabase();
-        final String SQL_SELECT_ACCOUNTS_INFO = "SELECT  * FROM " +
-                AccountTable.TABLE_ACCOUNT ;
-        Cursor cursor = db.rawQuery(SQL_SELECT_ACCOUNTS_INFO, null);
-        while(cursor.moveToNext()) {
-            String accountNo = cursor.getString(cursor.getColumnIndexOrThrow(AccountTable.COLUMN_ACCOUNT_NO));
-            String bankName = cursor.getString(cursor.getColumnIndexOrThrow(AccountTable.COLUMN_BANK_NAME));
-            String accountHolderName = cursor.getString(cursor.getColumnIndexOrThrow(AccountTable.COLUMN_ACCOUNT_HOLDER_NAME));
-            double balance = cursor.getDouble(cursor.getColumnIndexOrThrow(AccountTable.COLUMN_BALANCE));
-
-            accountInfoList.add(new Account(accountNo, bankName, accountHolderName, balance));
-        }
-        cursor.close();
-        return accountInfoList;
+        Cursor cursor = db.rawQuery(SQL_SELECT_ACCOUNTS, null);
+        return new AccountMapper(cursor).mapRows(cursor);
     }
 
 /**
@@ -80,16 +93,11 @@ public  class PersistentAccountDAO implements AccountDAO {
     public Account getAccount(String accountNo) throws InvalidAccountException {
         Account account;
         SQLiteDatabase db = dbUtil.getReadableDatabase();
-        final String SQL_SELECT_ACCOUNT_INFO = "SELECT  * FROM " +
-                AccountTable.TABLE_ACCOUNT + " WHERE " +
-                AccountTable.COLUMN_ACCOUNT_NO + "= ?";
+        final String SQL_SELECT_ACCOUNT_INFO = SQL_SELECT_ACCOUNTS + " WHERE " +
+                AccountTable.COLUMN_ACCOUNT_NO + " = ?";
         Cursor cursor = db.rawQuery(SQL_SELECT_ACCOUNT_INFO, new String[]{accountNo});
         if(cursor.moveToFirst()) {
-            String bankName = cursor.getString(cursor.getColumnIndexOrThrow(AccountTable.COLUMN_BANK_NAME));
-            String accountHolderName = cursor.getString(cursor.getColumnIndexOrThrow(AccountTable.COLUMN_ACCOUNT_HOLDER_NAME));
-            double balance = cursor.getDouble(cursor.getColumnIndexOrThrow(AccountTable.COLUMN_BALANCE));
-
-            account = new  Account(accountNo, bankName, accountHolderName, balance);
+            account = new AccountMapper(cursor).mapRow(cursor);
         } else {
             // empty query returned
             String msg = "The given account " + accountNo + " is invalid.";
@@ -101,91 +109,267 @@ public  class PersistentAccountDAO implements AccountDAO {
     }
 
 /**
- * It takes an Account object as a parameter, and inserts it into the database
+ * It takes an Account object as a parameter, and inserts it into the database. The insert runs in a write
+ * transaction, as the compiled statement it uses is shared. An account number which is already stored violates the
+ * unique constraint of the table, and is reported as a DuplicateAccountException.
  * 
  * @param account The account object to be inserted into the database.
  */
     @Override
     public void addAccount(Account account) {
         SQLiteDatabase db = dbUtil.getWritableDatabase();
-        // Create a new map of values, where column names are the keys
-        ContentValues values = new ContentValues();
-        values.put(AccountTable.COLUMN_ACCOUNT_NO, account.getAccountNo());
-        values.put(AccountTable.COLUMN_BANK_NAME, account.getBankName());
-        values.put(AccountTable.COLUMN_ACCOUNT_HOLDER_NAME, account.getAccountHolderName());
-        values.put(AccountTable.COLUMN_BALANCE, account.getBalance());
-
-        // Insert the new row
-        db.insert(AccountTable.TABLE_ACCOUNT, null, values);
-
+        final String SQL_INSERT_ACCOUNT = "INSERT INTO " +
+                AccountTable.TABLE_ACCOUNT + " (" +
+                AccountTable.COLUMN_ACCOUNT_NO + ", " +
+                AccountTable.COLUMN_BANK_NAME + ", " +
+                AccountTable.COLUMN_ACCOUNT_HOLDER_NAME + ", " +
+                AccountTable.COLUMN_BALANCE + ") VALUES (?, ?, ?, ?)";
+        dbUtil.beginWriteTransaction(db);
+        try {
+            SQLiteStatement insertStatement = dbUtil.getStatement(db, SQL_INSERT_ACCOUNT);
+            insertStatement.bindString(1, account.getAccountNo());
+            bindNullable(insertStatement, 2, account.getBankName());
+            bindNullable(insertStatement, 3, account.getAccountHolderName());
+            insertStatement.bindLong(4, account.getBalance());
+            // Insert the new row
+            insertStatement.executeInsert();
+            db.setTransactionSuccessful();
+        } catch (SQLiteConstraintException e) {
+            throw new DuplicateAccountException("Account " + account.getAccountNo() + " already exists.", e);
+        } finally {
+            db.endTransaction();
+        }
     }
 
 /**
- * It deletes the account from the database if it exists, otherwise it throws an exception
+ * It deletes the account, together with its transactions and monthly summary, from the database if it exists,
+ * otherwise it throws an exception. The transactions are deleted here because the transaction log only keeps the
+ * account id, and foreign key enforcement is not turned on for the ON DELETE CASCADE of the schema.
  * 
  * @param accountNo The account number of the account to be removed.
  */
     @Override
     public void removeAccount(String accountNo) throws InvalidAccountException {
-        SQLiteDatabase db = dbUtil.getReadableDatabase();
-        final String SQL_SELECT_ACCOUNT_INFO = "SELECT  * FROM " +
+        SQLiteDatabase db = dbUtil.getWritableDatabase();
+        final String SQL_DELETE_TRANSACTIONS = "DELETE FROM " +
+                TransactionTable.TABLE_TRANSACTION + " WHERE " +
+                TransactionTable.COLUMN_ACCOUNT_ID + " = ?";
+        final String SQL_DELETE_MONTHLY_SUMMARY = "DELETE FROM " +
+                MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + " WHERE " +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + " = ?";
+        final String SQL_DELETE_ACCOUNT = "DELETE FROM " +
                 AccountTable.TABLE_ACCOUNT + " WHERE " +
-                AccountTable.COLUMN_ACCOUNT_NO + "= ?";
-        Cursor cursor = db.rawQuery(SQL_SELECT_ACCOUNT_INFO, new String[]{accountNo});
-        if (cursor.moveToFirst()) {
-            // delete the account
-            db.delete(AccountTable.TABLE_ACCOUNT, AccountTable.COLUMN_ACCOUNT_NO + " = ?", new String[]{accountNo} );
-        } else {
-            // empty query returned
-            String msg = "The given account " + accountNo + " is invalid.";
-            cursor.close();
-            throw new InvalidAccountException(msg);
+                AccountTable.COLUMN_ACCOUNT_ID + " = ?";
+        dbUtil.beginWriteTransaction(db);
+        try {
+            Cursor cursor = db.rawQuery(SQL_SELECT_BALANCE, new String[]{accountNo});
+            if (cursor.moveToFirst()) {
+                long accountId = cursor.getLong(1);
+                cursor.close();
+                // delete the transactions, the summary and then the account
+                SQLiteStatement deleteStatement = dbUtil.getStatement(db, SQL_DELETE_TRANSACTIONS);
+                deleteStatement.bindLong(1, accountId);
+                deleteStatement.executeUpdateDelete();
+                deleteStatement = dbUtil.getStatement(db, SQL_DELETE_MONTHLY_SUMMARY);
+                deleteStatement.bindLong(1, accountId);
+                deleteStatement.executeUpdateDelete();
+                deleteStatement = dbUtil.getStatement(db, SQL_DELETE_ACCOUNT);
+                deleteStatement.bindLong(1, accountId);
+                deleteStatement.executeUpdateDelete();
+            } else {
+                // empty query returned
+                String msg = "The given account " + accountNo + " is invalid.";
+                cursor.close();
+                throw new InvalidAccountException(msg);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
         }
-        cursor.close();
     }
 
 /**
  * It updates the balance of an account by subtracting the amount if the expense type is EXPENSE and
- * adding the amount if the expense type is INCOME
+ * adding the amount if the expense type is INCOME. The balance is read and written in one write transaction.
  * 
  * @param accountNo the account number
  * @param expenseType enum type
- * @param amount the amount of money to be added or subtracted from the account
+ * @param amount the amount of money in cents to be added or subtracted from the account
  */
     @Override
-    public void updateBalance(String accountNo, ExpenseType expenseType, double amount) throws InvalidAccountException {
+    public void updateBalance(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException {
         SQLiteDatabase db = dbUtil.getWritableDatabase();
-        final String SQL_SELECT_ACCOUNT_INFO = "SELECT  * FROM " +
-                AccountTable.TABLE_ACCOUNT + " WHERE " +
-                AccountTable.COLUMN_ACCOUNT_NO + "= ?";
-        Cursor cursor = db.rawQuery(SQL_SELECT_ACCOUNT_INFO, new String[]{accountNo});
-        if(cursor.moveToFirst()){
+        dbUtil.beginWriteTransaction(db);
+        try {
+            Cursor cursor = db.rawQuery(SQL_SELECT_BALANCE, new String[]{accountNo});
+            if (!cursor.moveToFirst()) {
+                // empty query returned
+                String msg = "The given account " + accountNo + " is invalid.";
+                cursor.close();
+                throw new InvalidAccountException(msg);
+            }
             // first get the balance
-            double balance = cursor.getDouble(cursor.getColumnIndexOrThrow(AccountTable.COLUMN_BALANCE));
+            long balance = cursor.getLong(0);
+            long accountId = cursor.getLong(1);
+            cursor.close();
             // update the balance only if there is sufficient amount available, else do nothing
-            if(amount<balance) {
-//                Log.d("myTag", "account " + balance + ", amount: " + amount ); // debug
+            if (amount < balance) {
                 // based on the expense type, add or subtract the amount
                 switch (expenseType) {
                     case EXPENSE:
-                        balance -=amount;
+                        balance -= amount;
                         break;
                     case INCOME:
-                        balance +=amount;
+                        balance += amount;
                         break;
                 }
+                writeBalance(db, accountId, balance);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+/**
+ * It checks whether the given transaction DAO writes to the same database as this account DAO
+ *
+ * @param transactionDAO the transaction DAO used together with this account DAO
+ * @return true if a transaction can be applied atomically across both
+ */
+    @Override
+    public boolean canApplyTo(TransactionDAO transactionDAO) {
+        return transactionDAO instanceof PersistentTransactionDAO
+                && ((PersistentTransactionDAO) transactionDAO).getDBUtil() == dbUtil;
+    }
 
-                ContentValues values = new ContentValues();
-                values.put(AccountTable.COLUMN_BALANCE, balance);
-                // update the balance
-                int a = db.update(AccountTable.TABLE_ACCOUNT, values, AccountTable.COLUMN_ACCOUNT_NO + " = ?", new String[]{accountNo});
+/**
+ * It reads the balance once, and then logs the transaction and updates the balance inside a single database
+ * transaction. As in updateBalance, nothing is changed if the amount is not less than the balance.
+ *
+ * @param date the date of the transaction
+ * @param accountNo the account number
+ * @param expenseType enum type
+ * @param amount the amount of money in cents to be added or subtracted from the account
+ * @return The balance of the account after the transaction, in cents.
+ */
+    @Override
+    public long applyTransaction(Date date, String accountNo, ExpenseType expenseType, long amount)
+            throws InvalidAccountException {
+        SQLiteDatabase db = dbUtil.getWritableDatabase();
+        long balance;
+        dbUtil.beginWriteTransaction(db);
+        try {
+            balance = applyTransaction(db, date, accountNo, expenseType, amount);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return balance;
+    }
+
+/**
+ * It applies a batch of transactions inside a single database transaction, so the whole batch costs one commit.
+ * Each transaction is applied as in applyTransaction, and the transactions of unknown accounts are skipped.
+ *
+ * @param transactions the transactions to be applied, in order
+ */
+    @Override
+    public void applyTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = dbUtil.getWritableDatabase();
+        dbUtil.beginWriteTransaction(db);
+        try {
+            for (Transaction transaction : transactions) {
+                try {
+                    applyTransaction(db, transaction.getDate(), transaction.getAccountNo(),
+                            transaction.getExpenseType(), transaction.getAmount());
+                } catch (InvalidAccountException e) {
+                    Log.w(TAG, "Skipped a transaction of an unknown account", e);
+                }
             }
-        } else {
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+/**
+ * It reads the balance, and then logs the transaction and updates the balance. It should be called inside a
+ * database transaction.
+ *
+ * @return The balance of the account after the transaction, in cents.
+ */
+    private long applyTransaction(SQLiteDatabase db, Date date, String accountNo, ExpenseType expenseType,
+                                  long amount) throws InvalidAccountException {
+        Cursor cursor = db.rawQuery(SQL_SELECT_BALANCE, new String[]{accountNo});
+        if (!cursor.moveToFirst()) {
             // empty query returned
-            String msg = "The given account " + accountNo + " is invalid.";
             cursor.close();
+            String msg = "The given account " + accountNo + " is invalid.";
             throw new InvalidAccountException(msg);
         }
+        long balance = cursor.getLong(0);
+        long accountId = cursor.getLong(1);
         cursor.close();
+        // apply the transaction only if there is sufficient amount available, else do nothing
+        if (amount < balance) {
+            switch (expenseType) {
+                case EXPENSE:
+                    balance -= amount;
+                    break;
+                case INCOME:
+                    balance += amount;
+                    break;
+            }
+            PersistentTransactionDAO.insertTransaction(dbUtil, db, date, accountId, expenseType, amount);
+            writeBalance(db, accountId, balance);
+        }
+        return balance;
+    }
+
+/**
+ * It writes the new balance of an account with the compiled update statement. It should be called inside a write
+ * transaction.
+ */
+    private void writeBalance(SQLiteDatabase db, long accountId, long balance) {
+        SQLiteStatement updateStatement = dbUtil.getStatement(db, SQL_UPDATE_BALANCE);
+        updateStatement.bindLong(1, balance);
+        updateStatement.bindLong(2, accountId);
+        updateStatement.executeUpdateDelete();
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+/**
+ * It maps the rows selected by SQL_SELECT_ACCOUNTS to Account objects, with the column indexes resolved once per
+ * cursor
+ */
+    private static class AccountMapper extends RowMapper<Account> {
+        private final int accountNoIndex;
+        private final int bankNameIndex;
+        private final int accountHolderNameIndex;
+        private final int balanceIndex;
+
+        AccountMapper(Cursor cursor) {
+            accountNoIndex = cursor.getColumnIndexOrThrow(AccountTable.COLUMN_ACCOUNT_NO);
+            bankNameIndex = cursor.getColumnIndexOrThrow(AccountTable.COLUMN_BANK_NAME);
+            accountHolderNameIndex = cursor.getColumnIndexOrThrow(AccountTable.COLUMN_ACCOUNT_HOLDER_NAME);
+            balanceIndex = cursor.getColumnIndexOrThrow(AccountTable.COLUMN_BALANCE);
+        }
+
+        @Override
+        Account mapRow(Cursor cursor) {
+            return new Account(cursor.getString(accountNoIndex), cursor.getString(bankNameIndex),
+                    cursor.getString(accountHolderNameIndex), cursor.getLong(balanceIndex));
+        }
     }
-}
\ No newline at end of file
+}
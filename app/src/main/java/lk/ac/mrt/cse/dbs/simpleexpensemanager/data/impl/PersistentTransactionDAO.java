@@ -3,65 +3,255 @@
  */
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlySummary;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.AccountTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.MonthlySummaryTable;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.TransactionTable;
 
 public class PersistentTransactionDAO implements TransactionDAO {
+    // selects the id of an account by its number, for the per-account queries
+    private static final String ACCOUNT_ID_OF_ACCOUNT_NO = "(SELECT " +
+            AccountTable.COLUMN_ACCOUNT_ID + " FROM " +
+            AccountTable.TABLE_ACCOUNT + " WHERE " +
+            AccountTable.COLUMN_ACCOUNT_NO + " = ?)";
+    // number of decoded transactions kept by a view of the transaction log
+    private static final int VIEW_WINDOW_SIZE = 128;
+    // the columns read by TransactionMapper
+    private static final String SQL_SELECT_TRANSACTIONS = "SELECT " +
+            TransactionTable.COLUMN_TRANSACTION_ID + ", " +
+            TransactionTable.COLUMN_DATE + ", " +
+            TransactionTable.COLUMN_EXPENSE_TYPE + ", " +
+            TransactionTable.COLUMN_AMOUNT + ", " +
+            TransactionTable.COLUMN_ACCOUNT_ID + " FROM " +
+            TransactionTable.TABLE_TRANSACTION;
+    private static final String SQL_SELECT_BALANCE = "SELECT " +
+            AccountTable.COLUMN_BALANCE + ", " +
+            AccountTable.COLUMN_ACCOUNT_ID + " FROM " +
+            AccountTable.TABLE_ACCOUNT + " WHERE " +
+            AccountTable.COLUMN_ACCOUNT_NO + " = ?";
+    private static final String SQL_INSERT_TRANSACTION = "INSERT INTO " +
+            TransactionTable.TABLE_TRANSACTION + " (" +
+            TransactionTable.COLUMN_DATE + ", " +
+            TransactionTable.COLUMN_EXPENSE_TYPE + ", " +
+            TransactionTable.COLUMN_AMOUNT + ", " +
+            TransactionTable.COLUMN_ACCOUNT_ID + ") VALUES (?, ?, ?, ?)";
+
     private final DBUtil dbUtil;
+    // account numbers indexed by account id, filled as ids are met in the transaction log. Account ids are never
+    // reused, so an entry never goes stale. The array is replaced when it grows, and read without locking.
+    private volatile String[] accountNumbers = new String[16];
 
     public PersistentTransactionDAO(Context context) {
         this.dbUtil = DBUtil.getInstance(context);
     }
 /**
- * It takes in a date, account number, expense type, and amount, and inserts it into the database
+ * It takes in a date, account number, expense type, and amount, and inserts it into the database. The monthly
+ * summary is updated in the same database transaction. The account is looked up inside that transaction, for its id
+ * and a balance no other writer can change before the insert, so a cached AccountDAO can not stand in for it. This
+ * method is only used when no TransactionApplier logs the postings of the AccountDAO.
  * 
  * @param date Date object
  * @param accountNo String
  * @param expenseType enum
- * @param amount double
+ * @param amount long, in cents
  */
     @Override
-    public void logTransaction(Date date, String accountNo, ExpenseType expenseType, double amount) {
+    public void logTransaction(Date date, String accountNo, ExpenseType expenseType, long amount) {
         SQLiteDatabase db = dbUtil.getWritableDatabase();
-        final String SQL_SELECT_ACCOUNT_INFO = "SELECT  * FROM " +
-                DBFields.AccountTable.TABLE_ACCOUNT + " WHERE " +
-                DBFields.AccountTable.COLUMN_ACCOUNT_NO + "= ?";
-        Cursor cursor = db.rawQuery(SQL_SELECT_ACCOUNT_INFO, new String[]{accountNo});
-        if(cursor.moveToFirst()) {
-            double balance = cursor.getDouble(cursor.getColumnIndexOrThrow(DBFields.AccountTable.COLUMN_BALANCE));
-            // log the transaction if there is sufficient amount available, else do nothing
-            if(amount<balance) {
-//                Log.d("myTag", "transaction " + balance + ", amount: " + amount ); // debug
-                // Create a new map of values, where column names are the keys
-                ContentValues values = new ContentValues();
-                // format date
-                String formattedDate = new SimpleDateFormat("dd-MM-yyyy", Locale.getDefault()).format(date);
-                values.put(TransactionTable.COLUMN_DATE, formattedDate);
-                values.put(TransactionTable.COLUMN_EXPENSE_TYPE, expenseType.toString());
-                values.put(TransactionTable.COLUMN_AMOUNT, amount);
-                values.put(TransactionTable.COLUMN_ACCOUNT_NO, accountNo);
-
-                // Insert the new row
-                db.insert(TransactionTable.TABLE_TRANSACTION, null, values);
+        dbUtil.beginWriteTransaction(db);
+        try {
+            Cursor cursor = db.rawQuery(SQL_SELECT_BALANCE, new String[]{accountNo});
+            if(cursor.moveToFirst()) {
+                long balance = cursor.getLong(0);
+                // log the transaction if there is sufficient amount available, else do nothing
+                if(amount<balance) {
+//                    Log.d("myTag", "transaction " + balance + ", amount: " + amount ); // debug
+                    long accountId = cursor.getLong(1);
+                    insertTransaction(dbUtil, db, date, accountId, expenseType, amount);
+                }
             }
+            cursor.close();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+/**
+ * It inserts a single row into the transaction log and adds it to the monthly summary, without any checks on the
+ * account. It should be called inside a write transaction begun by the DBUtil, whose compiled statements it uses.
+ *
+ * @param dbUtil the DBUtil holding the compiled statements
+ * @param db the writable database
+ * @param date Date object
+ * @param accountId the id of the account
+ * @param expenseType enum
+ * @param amount long, in cents
+ */
+    static void insertTransaction(DBUtil dbUtil, SQLiteDatabase db, Date date, long accountId,
+                                  ExpenseType expenseType, long amount) {
+        // store the date as an epoch day
+        int epochDay = DateCodec.toEpochDay(date);
+        SQLiteStatement insertStatement = dbUtil.getStatement(db, SQL_INSERT_TRANSACTION);
+        insertStatement.bindLong(1, epochDay);
+        insertStatement.bindString(2, expenseType.toString());
+        insertStatement.bindLong(3, amount);
+        insertStatement.bindLong(4, accountId);
+        // Insert the new row
+        insertStatement.executeInsert();
+        addToMonthlySummary(dbUtil, db, accountId, DateCodec.toYearMonth(epochDay), expenseType, amount, 1);
+    }
+
+/**
+ * It adds a total and a count to the monthly summary row of the given account, month and type, creating the row if
+ * it does not exist yet. It should be called inside a write transaction begun by the DBUtil.
+ *
+ * @param dbUtil the DBUtil holding the compiled statements
+ * @param db the writable database
+ * @param accountId the id of the account
+ * @param yearMonth the month as the number yyyyMM
+ * @param expenseType enum
+ * @param total long, in cents
+ * @param count the number of transactions in the total
+ */
+    static void addToMonthlySummary(DBUtil dbUtil, SQLiteDatabase db, long accountId, int yearMonth,
+                                    ExpenseType expenseType, long total, int count) {
+        final String SQL_UPDATE_MONTHLY_SUMMARY = "UPDATE " +
+                MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + " SET " +
+                MonthlySummaryTable.COLUMN_TOTAL + " = " + MonthlySummaryTable.COLUMN_TOTAL + " + ?, " +
+                MonthlySummaryTable.COLUMN_COUNT + " = " + MonthlySummaryTable.COLUMN_COUNT + " + ? WHERE " +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + " = ? AND " +
+                MonthlySummaryTable.COLUMN_MONTH + " = ? AND " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE + " = ?";
+        final String SQL_INSERT_MONTHLY_SUMMARY = "INSERT INTO " +
+                MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + " (" +
+                MonthlySummaryTable.COLUMN_TOTAL + ", " +
+                MonthlySummaryTable.COLUMN_COUNT + ", " +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + ", " +
+                MonthlySummaryTable.COLUMN_MONTH + ", " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE + ") VALUES (?, ?, ?, ?, ?)";
+        // both statements take the same arguments in the same order
+        SQLiteStatement updateStatement = dbUtil.getStatement(db, SQL_UPDATE_MONTHLY_SUMMARY);
+        bindMonthlySummary(updateStatement, accountId, yearMonth, expenseType, total, count);
+        if (updateStatement.executeUpdateDelete() == 0) {
+            // first transaction of this account, month and type
+            SQLiteStatement insertStatement = dbUtil.getStatement(db, SQL_INSERT_MONTHLY_SUMMARY);
+            bindMonthlySummary(insertStatement, accountId, yearMonth, expenseType, total, count);
+            insertStatement.executeInsert();
+        }
+    }
+
+    private static void bindMonthlySummary(SQLiteStatement statement, long accountId, int yearMonth,
+                                           ExpenseType expenseType, long total, int count) {
+        statement.bindLong(1, total);
+        statement.bindLong(2, count);
+        statement.bindLong(3, accountId);
+        statement.bindLong(4, yearMonth);
+        statement.bindString(5, expenseType.toString());
+    }
+
+    DBUtil getDBUtil() {
+        return dbUtil;
+    }
+
+/**
+ * It logs a batch of transactions inside a single database transaction, so the whole batch is committed at once.
+ * The balance of each account involved is read only once and the compiled insert statement is reused for
+ * every row. The monthly summary is updated once per account, month and type of the batch.
+ *
+ * @param transactions the transactions to be logged, in order
+ */
+    @Override
+    public void logTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = dbUtil.getWritableDatabase();
+        dbUtil.beginWriteTransaction(db);
+        try {
+            Map<String, Long> balances = new HashMap<>();
+            Map<String, Long> accountIds = new HashMap<>();
+            readAccounts(db, transactions, balances, accountIds);
+            // the batch is summarized in memory, keyed by month, type and account
+            Map<String, MonthlySummary> summaries = new HashMap<>();
+            SQLiteStatement insertStatement = dbUtil.getStatement(db, SQL_INSERT_TRANSACTION);
+            for (Transaction transaction : transactions) {
+                Long balance = balances.get(transaction.getAccountNo());
+                // log the transaction only if the account exists and there is sufficient amount available
+                if (balance != null && transaction.getAmount() < balance) {
+                    int epochDay = DateCodec.toEpochDay(transaction.getDate());
+                    insertStatement.bindLong(1, epochDay);
+                    insertStatement.bindString(2, transaction.getExpenseType().toString());
+                    insertStatement.bindLong(3, transaction.getAmount());
+                    insertStatement.bindLong(4, accountIds.get(transaction.getAccountNo()));
+                    insertStatement.executeInsert();
+
+                    int yearMonth = DateCodec.toYearMonth(epochDay);
+                    String key = yearMonth + ":" + transaction.getExpenseType() + ":" + transaction.getAccountNo();
+                    MonthlySummary summary = summaries.get(key);
+                    if (summary == null) {
+                        summary = new MonthlySummary(transaction.getAccountNo(), yearMonth / 100,
+                                yearMonth % 100, transaction.getExpenseType(), 0, 0);
+                        summaries.put(key, summary);
+                    }
+                    summary.setTotal(summary.getTotal() + transaction.getAmount());
+                    summary.setCount(summary.getCount() + 1);
+                }
             }
-        cursor.close();
+            for (MonthlySummary summary : summaries.values()) {
+                addToMonthlySummary(dbUtil, db, accountIds.get(summary.getAccountNo()),
+                        summary.getYear() * 100 + summary.getMonth(), summary.getExpenseType(), summary.getTotal(),
+                        summary.getCount());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+/**
+ * It reads the balance and the id of every distinct account in the given transactions, one query per account
+ *
+ * @param db the database to read from
+ * @param transactions the transactions whose accounts are looked up
+ * @param balances filled with the balance of each account number, without entries for unknown accounts
+ * @param accountIds filled with the id of each account number, without entries for unknown accounts
+ */
+    private void readAccounts(SQLiteDatabase db, List<Transaction> transactions, Map<String, Long> balances,
+                              Map<String, Long> accountIds) {
+        Set<String> visited = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            String accountNo = transaction.getAccountNo();
+            if (!visited.add(accountNo)) {
+                continue;
+            }
+            Cursor cursor = db.rawQuery(SQL_SELECT_BALANCE, new String[]{accountNo});
+            if (cursor.moveToFirst()) {
+                balances.put(accountNo, cursor.getLong(0));
+                accountIds.put(accountNo, cursor.getLong(1));
+            }
+            cursor.close();
+        }
     }
 
 /**
@@ -71,35 +261,87 @@ public class PersistentTransactionDAO implements TransactionDAO {
  */
     @Override
     public List<Transaction> getAllTransactionLogs() {
-        List<Transaction> transactionList = new ArrayList<>();
         SQLiteDatabase db = dbUtil.getReadableDatabase();
-        final String SQL_SELECT_TRANSACTIONS_INFO = "SELECT  * FROM " +
-                TransactionTable.TABLE_TRANSACTION ;
+        final String SQL_SELECT_TRANSACTIONS_INFO = SQL_SELECT_TRANSACTIONS + " ORDER BY " +
+                TransactionTable.COLUMN_TRANSACTION_ID;
+        Cursor cursor = db.rawQuery(SQL_SELECT_TRANSACTIONS_INFO, null);
+        return new TransactionMapper(cursor).mapRows(cursor);
+    }
+
+/**
+ * It opens a view of all the transactions over a cursor, which decodes a transaction only when it is asked for and
+ * keeps a bounded window of decoded transactions
+ *
+ * @return A view of the transactions in the order of insertion, to be closed once it is no longer needed.
+ */
+    @Override
+    public TransactionLogView getTransactionLogsView() {
+        SQLiteDatabase db = dbUtil.getReadableDatabase();
+        final String SQL_SELECT_TRANSACTIONS_INFO = SQL_SELECT_TRANSACTIONS + " ORDER BY " +
+                TransactionTable.COLUMN_TRANSACTION_ID;
+        Cursor cursor = db.rawQuery(SQL_SELECT_TRANSACTIONS_INFO, null);
+        try {
+            return new CursorTransactionLogView(cursor, new TransactionMapper(cursor), VIEW_WINDOW_SIZE);
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+/**
+ * It streams all the transactions from the database to the visitor straight from the cursor. A single Transaction
+ * object, and the Date it holds, are reused for every row, so the memory used does not grow with the size of the
+ * table.
+ *
+ * @param visitor receives each transaction in the order of insertion
+ */
+    @Override
+    public void visitTransactionLogs(TransactionVisitor visitor) {
+        SQLiteDatabase db = dbUtil.getReadableDatabase();
+        final String SQL_SELECT_TRANSACTIONS_INFO = SQL_SELECT_TRANSACTIONS + " ORDER BY " +
+                TransactionTable.COLUMN_TRANSACTION_ID;
         Cursor cursor = db.rawQuery(SQL_SELECT_TRANSACTIONS_INFO, null);
-        while(cursor.moveToNext()) {
-            String date = cursor.getString(cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_DATE));
-            // format date into Date object
-            Date formattedDate = null;
-            try {
-                formattedDate = new SimpleDateFormat("dd-MM-yyyy", Locale.getDefault()).parse(date);
-            } catch (ParseException e) {
-                e.printStackTrace();
+        try {
+            TransactionMapper mapper = new TransactionMapper(cursor);
+            Transaction transaction = new Transaction(null, null, null, 0);
+            while (cursor.moveToNext()) {
+                if (!visitor.visit(mapper.fill(cursor, transaction))) {
+                    break;
+                }
             }
-            String accountNo = cursor.getString(cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_ACCOUNT_NO));
-            String expenseType = cursor.getString(cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_EXPENSE_TYPE));
-            // create an expense type object based on the expense type string
-            ExpenseType expenseTypeObj;
-            if (expenseType.equals(ExpenseType.EXPENSE.toString())) {
-                expenseTypeObj = ExpenseType.EXPENSE;
-            } else {
-                expenseTypeObj = ExpenseType.INCOME;
+        } finally {
+            cursor.close();
+        }
+    }
+
+/**
+ * It streams the transactions with an id in the given range to the visitor, seeking on the primary key. Each call
+ * runs its own query, so in write-ahead logging mode disjoint ranges can be read by several threads at once.
+ *
+ * @param fromId the first transaction id, inclusive
+ * @param toId the last transaction id, exclusive
+ * @param visitor receives each transaction, and may stop the pass by returning false
+ */
+    @Override
+    public void visitTransactionLogs(long fromId, long toId, TransactionVisitor visitor) {
+        SQLiteDatabase db = dbUtil.getReadableDatabase();
+        final String SQL_SELECT_TRANSACTIONS_RANGE = SQL_SELECT_TRANSACTIONS + " WHERE " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " >= ? AND " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " < ? ORDER BY " +
+                TransactionTable.COLUMN_TRANSACTION_ID;
+        Cursor cursor = db.rawQuery(SQL_SELECT_TRANSACTIONS_RANGE,
+                new String[]{Long.toString(fromId), Long.toString(toId)});
+        try {
+            TransactionMapper mapper = new TransactionMapper(cursor);
+            Transaction transaction = new Transaction(null, null, null, 0);
+            while (cursor.moveToNext()) {
+                if (!visitor.visit(mapper.fill(cursor, transaction))) {
+                    break;
+                }
             }
-            double amount = cursor.getDouble(cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_AMOUNT));
-            // create a transaction object and add it to the list
-            transactionList.add(new Transaction(formattedDate, accountNo, expenseTypeObj, amount));
+        } finally {
+            cursor.close();
         }
-        cursor.close();
-        return transactionList;
     }
 
 /**
@@ -111,38 +353,218 @@ public class PersistentTransactionDAO implements TransactionDAO {
  */
     @Override
     public List<Transaction> getPaginatedTransactionLogs(int limit) {
-        List<Transaction> paginatedTransactionList = new ArrayList<>();
+        return getTransactionLogsBefore(Long.MAX_VALUE, limit);
+    }
+
+/**
+ * It returns the transactions logged before the given transaction id, ordered by the time of insertion. The
+ * query seeks on the primary key instead of using an OFFSET, so every page costs the same as the first one.
+ *
+ * @param transactionId the id of the oldest transaction already seen
+ * @param limit the number of transactions to be returned
+ * @return A list of Transaction objects.
+ */
+    @Override
+    public List<Transaction> getTransactionLogsBefore(long transactionId, int limit) {
         SQLiteDatabase db = dbUtil.getReadableDatabase();
-        final String SQL_SELECT_TRANSACTIONS_INFO = "SELECT  * FROM " +
-                TransactionTable.TABLE_TRANSACTION + " ORDER BY " +
+        final String SQL_SELECT_TRANSACTIONS_INFO = SQL_SELECT_TRANSACTIONS + " WHERE " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " < ? ORDER BY " +
                 TransactionTable.COLUMN_TRANSACTION_ID + " DESC LIMIT ?";
-        Cursor cursor = db.rawQuery(SQL_SELECT_TRANSACTIONS_INFO, new String[]{String.valueOf(limit)});
+        Cursor cursor = db.rawQuery(SQL_SELECT_TRANSACTIONS_INFO,
+                new String[]{String.valueOf(transactionId), String.valueOf(limit)});
+        List<Transaction> paginatedTransactionList = new ArrayList<>(cursor.getCount());
+        try {
+            // the query returns the newest first, the cursor is read from its end to get the order of insertion
+            TransactionMapper mapper = new TransactionMapper(cursor);
+            for (int i = cursor.getCount() - 1; i >= 0; i--) {
+                cursor.moveToPosition(i);
+                paginatedTransactionList.add(mapper.mapRow(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return paginatedTransactionList;
+    }
+
+/**
+ * It returns the monthly summary of the given account from the summary table, without reading the transaction log
+ *
+ * @param accountNo the account number
+ * @return A list of MonthlySummary objects ordered by month and type.
+ */
+    @Override
+    public List<MonthlySummary> getMonthlySummary(String accountNo) {
+        List<MonthlySummary> summaryList = new ArrayList<>();
+        SQLiteDatabase db = dbUtil.getReadableDatabase();
+        final String SQL_SELECT_MONTHLY_SUMMARY = "SELECT " +
+                MonthlySummaryTable.COLUMN_MONTH + ", " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE + ", " +
+                MonthlySummaryTable.COLUMN_TOTAL + ", " +
+                MonthlySummaryTable.COLUMN_COUNT + " FROM " +
+                MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + " WHERE " +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + " = " + ACCOUNT_ID_OF_ACCOUNT_NO + " ORDER BY " +
+                MonthlySummaryTable.COLUMN_MONTH + ", " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE;
+        Cursor cursor = db.rawQuery(SQL_SELECT_MONTHLY_SUMMARY, new String[]{accountNo});
         while (cursor.moveToNext()) {
-            // format date into Date object
-            String date = cursor.getString(cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_DATE));
-            Date formattedDate = null;
-            try {
-                formattedDate = new SimpleDateFormat("dd-MM-yyyy", Locale.getDefault()).parse(date);
-            } catch (ParseException e) {
-                e.printStackTrace();
+            int yearMonth = cursor.getInt(0);
+            summaryList.add(new MonthlySummary(accountNo, yearMonth / 100, yearMonth % 100,
+                    ExpenseType.valueOf(cursor.getString(1)), cursor.getLong(2), cursor.getInt(3)));
+        }
+        cursor.close();
+        return summaryList;
+    }
+
+/**
+ * It returns all the transactions of the given account, using the (accountId, date) index
+ *
+ * @param accountNo the account number
+ * @return A list of Transaction objects ordered by date.
+ */
+    @Override
+    public List<Transaction> getTransactionsForAccount(String accountNo) {
+        final String SELECTION = TransactionTable.COLUMN_ACCOUNT_ID + " = " + ACCOUNT_ID_OF_ACCOUNT_NO;
+        return getTransactions(SELECTION, new String[]{accountNo});
+    }
+
+/**
+ * It returns all the transactions dated within the given period, using the date index
+ *
+ * @param from the first day of the period, inclusive
+ * @param to the last day of the period, inclusive
+ * @return A list of Transaction objects ordered by date.
+ */
+    @Override
+    public List<Transaction> getTransactionsBetween(Date from, Date to) {
+        final String SELECTION = TransactionTable.COLUMN_DATE + " BETWEEN ? AND ?";
+        return getTransactions(SELECTION, new String[]{
+                String.valueOf(DateCodec.toEpochDay(from)), String.valueOf(DateCodec.toEpochDay(to))});
+    }
+
+/**
+ * It returns the transactions of the given account dated within the given period, using the (accountId, date)
+ * index
+ *
+ * @param accountNo the account number
+ * @param from the first day of the period, inclusive
+ * @param to the last day of the period, inclusive
+ * @return A list of Transaction objects ordered by date.
+ */
+    @Override
+    public List<Transaction> getTransactionsForAccountBetween(String accountNo, Date from, Date to) {
+        final String SELECTION = TransactionTable.COLUMN_ACCOUNT_ID + " = " + ACCOUNT_ID_OF_ACCOUNT_NO + " AND " +
+                TransactionTable.COLUMN_DATE + " BETWEEN ? AND ?";
+        return getTransactions(SELECTION, new String[]{accountNo,
+                String.valueOf(DateCodec.toEpochDay(from)), String.valueOf(DateCodec.toEpochDay(to))});
+    }
+
+/**
+ * It returns the transactions matching the given selection, ordered by date and then by the time of insertion
+ *
+ * @param selection the WHERE clause
+ * @param selectionArgs the arguments of the WHERE clause
+ * @return A list of Transaction objects.
+ */
+    private List<Transaction> getTransactions(String selection, String[] selectionArgs) {
+        SQLiteDatabase db = dbUtil.getReadableDatabase();
+        final String SQL_SELECT_TRANSACTIONS_INFO = SQL_SELECT_TRANSACTIONS + " WHERE " + selection + " ORDER BY " +
+                TransactionTable.COLUMN_DATE + ", " +
+                TransactionTable.COLUMN_TRANSACTION_ID;
+        Cursor cursor = db.rawQuery(SQL_SELECT_TRANSACTIONS_INFO, selectionArgs);
+        return new TransactionMapper(cursor).mapRows(cursor);
+    }
+
+/**
+ * It maps the rows of the transaction table to Transaction objects. The column indexes are resolved once, when the
+ * mapper is created for a cursor.
+ */
+    private class TransactionMapper extends RowMapper<Transaction> {
+        private final int transactionIdIndex;
+        private final int dateIndex;
+        private final int expenseTypeIndex;
+        private final int amountIndex;
+        private final int accountIdIndex;
+
+        TransactionMapper(Cursor cursor) {
+            transactionIdIndex = cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_TRANSACTION_ID);
+            dateIndex = cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_DATE);
+            expenseTypeIndex = cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_EXPENSE_TYPE);
+            amountIndex = cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_AMOUNT);
+            accountIdIndex = cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_ACCOUNT_ID);
+        }
+
+        @Override
+        Transaction mapRow(Cursor cursor) {
+            return fill(cursor, new Transaction(null, null, null, 0));
+        }
+
+/**
+ * It fills the given transaction object from the current row of the cursor
+ *
+ * @param cursor the cursor the mapper was created for, positioned on a row
+ * @param transaction the object to be filled, whose Date is updated in place if it has one
+ * @return The given Transaction object.
+ */
+        Transaction fill(Cursor cursor, Transaction transaction) {
+            // convert the epoch day into a Date object
+            Date date = transaction.getDate();
+            if (cursor.isNull(dateIndex)) {
+                date = null;
+            } else if (date == null) {
+                date = DateCodec.toDate(cursor.getInt(dateIndex));
+            } else {
+                date.setTime(DateCodec.toMillis(cursor.getInt(dateIndex)));
             }
-            String accountNo = cursor.getString(cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_ACCOUNT_NO));
-            String expenseType = cursor.getString(cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_EXPENSE_TYPE));
+            // the account number comes from the dictionary, so no String is created for the row
+            String accountNo = getAccountNo(cursor.getInt(accountIdIndex));
             // create an expense type object based on the expense type string
-            ExpenseType expenseTypeObj;
-            if (expenseType.equals(ExpenseType.EXPENSE.toString())) {
-                expenseTypeObj = ExpenseType.EXPENSE;
+            ExpenseType expenseType = ExpenseType.EXPENSE.toString().equals(cursor.getString(expenseTypeIndex))
+                    ? ExpenseType.EXPENSE : ExpenseType.INCOME;
+            transaction.setTransactionId(cursor.getLong(transactionIdIndex));
+            transaction.setDate(date);
+            transaction.setAccountNo(accountNo);
+            transaction.setExpenseType(expenseType);
+            transaction.setAmount(cursor.getLong(amountIndex));
+            return transaction;
+        }
+    }
+
+/**
+ * It returns the account number of the given account id from the dictionary, loading it from the account table
+ * the first time the id is met. The numbers are interned, so every transaction of an account shares one String.
+ *
+ * @param accountId the id of the account
+ * @return The account number, or null if there is no such account.
+ */
+    private String getAccountNo(int accountId) {
+        String[] numbers = accountNumbers;
+        if (accountId < numbers.length && numbers[accountId] != null) {
+            return numbers[accountId];
+        }
+        synchronized (this) {
+            numbers = accountNumbers;
+            if (accountId >= numbers.length) {
+                numbers = Arrays.copyOf(numbers, Math.max(numbers.length * 2, accountId + 1));
+            } else if (numbers[accountId] != null) {
+                return numbers[accountId];
             } else {
-                expenseTypeObj = ExpenseType.INCOME;
+                numbers = numbers.clone();
             }
-            double amount = cursor.getDouble(cursor.getColumnIndexOrThrow(TransactionTable.COLUMN_AMOUNT));
-            // create a transaction object and add it to the list
-            paginatedTransactionList.add(new Transaction(formattedDate, accountNo, expenseTypeObj, amount));
+            SQLiteDatabase db = dbUtil.getReadableDatabase();
+            final String SQL_SELECT_ACCOUNT_NO = "SELECT " +
+                    AccountTable.COLUMN_ACCOUNT_NO + " FROM " +
+                    AccountTable.TABLE_ACCOUNT + " WHERE " +
+                    AccountTable.COLUMN_ACCOUNT_ID + " = ?";
+            Cursor cursor = db.rawQuery(SQL_SELECT_ACCOUNT_NO, new String[]{String.valueOf(accountId)});
+            String accountNo = null;
+            if (cursor.moveToFirst()) {
+                accountNo = cursor.getString(0).intern();
+                numbers[accountId] = accountNo;
+                // publish the filled copy
+                accountNumbers = numbers;
+            }
+            cursor.close();
+            return accountNo;
         }
-        cursor.close();
-        // reverse order received from query, we want the order based on the time of insertion
-        // therefore, the most recent transaction should be at the top of the list
-        Collections.reverse(paginatedTransactionList);
-        return paginatedTransactionList;
     }
 }
@@ -0,0 +1,33 @@
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the rows of a cursor to objects. A mapper is created for one cursor, and its subclasses resolve the indexes of
+ * the columns they read in their constructor, once instead of on every row.
+ */
+abstract class RowMapper<T> {
+
+    /**
+     * Create an object from the current row of the cursor the mapper was created for.
+     */
+    abstract T mapRow(Cursor cursor);
+
+    /**
+     * Map every remaining row of the cursor, and close it.
+     */
+    List<T> mapRows(Cursor cursor) {
+        List<T> rows = new ArrayList<>();
+        try {
+            while (cursor.moveToNext()) {
+                rows.add(mapRow(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,62 @@
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of the SQLiteStatements compiled on a database, keyed by their SQL. The statements are dropped and compiled
+ * again when the database is reopened.
+ * <p/>
+ * A SQLiteStatement keeps its bound arguments, so a cached statement must only be used inside a write transaction
+ * begun through DBUtil. The writers are serialized by that transaction, so no two threads bind the same statement at
+ * once.
+ */
+class StatementCache {
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
+    // the database the cached statements were compiled on
+    private SQLiteDatabase database;
+    private final AtomicLong compiledCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+
+    /**
+     * Get the statement of the given SQL, compiling it on the given database the first time it is asked for.
+     */
+    synchronized SQLiteStatement get(SQLiteDatabase db, String sql) {
+        if (db != database) {
+            clear();
+            database = db;
+        }
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+            compiledCount.incrementAndGet();
+        } else {
+            reusedCount.incrementAndGet();
+        }
+        return statement;
+    }
+
+    /**
+     * Close every cached statement, for example before the database is closed.
+     */
+    synchronized void clear() {
+        for (SQLiteStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+        database = null;
+    }
+
+    long getCompiledCount() {
+        return compiledCount.get();
+    }
+
+    long getReusedCount() {
+        return reusedCount.get();
+    }
+}
@@ -16,18 +16,22 @@
 
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.ui;
 
+import android.content.DialogInterface;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
+import android.support.v7.app.AlertDialog;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.EditText;
 
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.ExpenseManagerApplication;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManagerCallback;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
 
-import static lk.ac.mrt.cse.dbs.simpleexpensemanager.Constants.EXPENSE_MANAGER;
 /**
  *
  */
@@ -39,12 +43,8 @@ public class AddAccountFragment extends Fragment implements View.OnClickListener
     private EditText initialBalance;
     private Button addAccount;
 
-    public static AddAccountFragment newInstance(ExpenseManager expenseManager) {
-        AddAccountFragment addAccountFragment = new AddAccountFragment();
-        Bundle args = new Bundle();
-        args.putSerializable(EXPENSE_MANAGER, expenseManager);
-        addAccountFragment.setArguments(args);
-        return addAccountFragment;
+    public static AddAccountFragment newInstance() {
+        return new AddAccountFragment();
     }
 
     public AddAccountFragment() {
@@ -60,7 +60,7 @@ public class AddAccountFragment extends Fragment implements View.OnClickListener
         addAccount = (Button) rootView.findViewById(R.id.add_account);
         addAccount.setOnClickListener(this);
 
-        currentExpenseManager = (ExpenseManager) getArguments().get(EXPENSE_MANAGER);
+        currentExpenseManager = ExpenseManagerApplication.getExpenseManager(getActivity());
         return rootView;
     }
 
@@ -95,14 +95,42 @@ public class AddAccountFragment extends Fragment implements View.OnClickListener
                 }
 
                 if (currentExpenseManager != null) {
-                    currentExpenseManager.addAccount(accountNumStr, bankNameStr, accountHolderStr,
-                            Double.parseDouble(initialBalanceStr));
+                    final String account = accountNumStr;
+                    // the form is cleared once the account is stored, and kept for another try otherwise
+                    currentExpenseManager.addAccountAsync(accountNumStr, bankNameStr, accountHolderStr,
+                            Money.parseCents(initialBalanceStr), new ExpenseManagerCallback<Void>() {
+                        @Override
+                        public void onSuccess(Void result) {
+                            if (isAdded()) {
+                                cleanUp();
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            if (isAdded()) {
+                                showAddError(account, e);
+                            }
+                        }
+                    });
                 }
-                cleanUp();
                 break;
         }
     }
 
+    private void showAddError(String accountNo, Exception e) {
+        new AlertDialog.Builder(this.getActivity())
+                .setTitle(this.getString(R.string.msg_account_add_unable) + accountNo)
+                .setMessage(e.getMessage())
+                .setNeutralButton(this.getString(R.string.msg_ok),
+                        new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dialog.cancel();
+                    }
+                }).setIcon(android.R.drawable.ic_dialog_alert).show();
+    }
+
     private void cleanUp() {
         accountNumber.getText().clear();
         bankName.getText().clear();
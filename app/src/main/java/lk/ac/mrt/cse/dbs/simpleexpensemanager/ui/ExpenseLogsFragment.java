@@ -18,34 +18,34 @@ package lk.ac.mrt.cse.dbs.simpleexpensemanager.ui;
 
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TableLayout;
-import android.widget.TableRow;
-import android.widget.TextView;
+import android.widget.Toast;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
 
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.ExpenseManagerApplication;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManagerCallback;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
 
-import static lk.ac.mrt.cse.dbs.simpleexpensemanager.Constants.EXPENSE_MANAGER;
 /**
- *
+ * Shows the transaction logs newest first in a recycled list, bound to a view of the logs which reads only the rows
+ * shown. The view is opened on a reader thread, and opened again whenever the tab is shown, so that the transactions
+ * posted meanwhile are included.
  */
 public class ExpenseLogsFragment extends Fragment {
     private ExpenseManager currentExpenseManager;
+    private TransactionLogAdapter logAdapter;
+    // incremented on every refresh, so that a view opened for an earlier one is closed instead of shown
+    private int refreshCount;
 
-    public static ExpenseLogsFragment newInstance(ExpenseManager expenseManager) {
-        ExpenseLogsFragment expenseLogsFragment = new ExpenseLogsFragment();
-        Bundle args = new Bundle();
-        args.putSerializable(EXPENSE_MANAGER, expenseManager);
-        expenseLogsFragment.setArguments(args);
-        return expenseLogsFragment;
+    public static ExpenseLogsFragment newInstance() {
+        return new ExpenseLogsFragment();
     }
 
     public ExpenseLogsFragment() {
@@ -53,43 +53,67 @@ public class ExpenseLogsFragment extends Fragment {
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
-        View rootView = inflater.inflate(R.layout.fragment_expense_logs, container, false);
-        TableLayout logsTableLayout = (TableLayout) rootView.findViewById(R.id.logs_table);
-        TableRow tableRowHeader = (TableRow) rootView.findViewById(R.id.logs_table_header);
+        final View rootView = inflater.inflate(R.layout.fragment_expense_logs, container, false);
+        RecyclerView logsList = (RecyclerView) rootView.findViewById(R.id.logs_list);
 
-        currentExpenseManager = (ExpenseManager) getArguments().get(EXPENSE_MANAGER);
-        List<Transaction> transactionList = new ArrayList<>();
-        if (currentExpenseManager != null) {
-            transactionList = currentExpenseManager.getTransactionLogs();
-        }
-        generateTransactionsTable(rootView, logsTableLayout, transactionList);
+        // the date format is built once for the whole list instead of once per row
+        logAdapter = new TransactionLogAdapter(
+                new SimpleDateFormat(getActivity().getString(R.string.config_date_log_pattern)));
+        logsList.setLayoutManager(new LinearLayoutManager(rootView.getContext()));
+        logsList.setHasFixedSize(true);
+        logsList.setAdapter(logAdapter);
+
+        currentExpenseManager = ExpenseManagerApplication.getExpenseManager(getActivity());
         return rootView;
     }
 
-    private void generateTransactionsTable(View rootView, TableLayout logsTableLayout,
-                                           List<Transaction> transactionList) {
-        for (Transaction transaction : transactionList) {
-            TableRow tr = new TableRow(rootView.getContext());
-            TextView lDateVal = new TextView(rootView.getContext());
-
-            SimpleDateFormat sdf = new SimpleDateFormat(getActivity().getString(R.string.config_date_log_pattern));
-            String formattedDate = sdf.format(transaction.getDate());
-            lDateVal.setText(formattedDate);
-            tr.addView(lDateVal);
-
-            TextView lAccountNoVal = new TextView(rootView.getContext());
-            lAccountNoVal.setText(transaction.getAccountNo());
-            tr.addView(lAccountNoVal);
+    @Override
+    public void onResume() {
+        super.onResume();
+        refresh();
+    }
 
-            TextView lExpenseTypeVal = new TextView(rootView.getContext());
-            lExpenseTypeVal.setText(transaction.getExpenseType().toString());
-            tr.addView(lExpenseTypeVal);
+    @Override
+    public void setUserVisibleHint(boolean isVisibleToUser) {
+        super.setUserVisibleHint(isVisibleToUser);
+        // the pager keeps the tabs resumed, so switching to this tab after a posting does not resume it
+        if (isVisibleToUser && isResumed()) {
+            refresh();
+        }
+    }
 
-            TextView lAmountVal = new TextView(rootView.getContext());
-            lAmountVal.setText(String.valueOf(transaction.getAmount()));
-            tr.addView(lAmountVal);
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        refreshCount++;
+        logAdapter.setTransactions(null);
+    }
 
-            logsTableLayout.addView(tr);
+    /**
+     * Open a new view of the transaction logs on a reader thread, and show it in place of the current one.
+     */
+    private void refresh() {
+        if (currentExpenseManager == null) {
+            return;
         }
+        final int refresh = ++refreshCount;
+        currentExpenseManager.getTransactionLogsViewAsync(new ExpenseManagerCallback<TransactionLogView>() {
+            @Override
+            public void onSuccess(TransactionLogView transactions) {
+                if (!isAdded() || refresh != refreshCount) {
+                    transactions.close();
+                    return;
+                }
+                logAdapter.setTransactions(transactions);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (isAdded() && refresh == refreshCount) {
+                    Toast.makeText(getActivity(), getString(R.string.msg_logs_unable) + e.getMessage(),
+                            Toast.LENGTH_LONG).show();
+                }
+            }
+        });
     }
 }
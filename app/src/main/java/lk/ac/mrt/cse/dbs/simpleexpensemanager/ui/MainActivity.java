@@ -25,9 +25,9 @@ import android.support.v4.view.ViewPager;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
 
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.ExpenseManagerApplication;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.PersistentExpenseManager;
 
 public class MainActivity extends AppCompatActivity {
     private ExpenseManager expenseManager;
@@ -64,9 +64,16 @@ public class MainActivity extends AppCompatActivity {
         TabLayout tabLayout = (TabLayout) findViewById(R.id.tabs);
         tabLayout.setupWithViewPager(mViewPager);
 
-        /***  Setup the persistent storage implementation  ***/
-        expenseManager = new PersistentExpenseManager(this);
-        /*** END ***/
+        // the persistent storage implementation is set up by the application, once for the process
+        expenseManager = ExpenseManagerApplication.getExpenseManager(this);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // start committing the postings held back by the write-behind mode, without holding up the main thread; the
+        // application waits for the rest once the user interface is hidden
+        expenseManager.flushAsync(null);
     }
 
     /**
@@ -85,13 +92,13 @@ public class MainActivity extends AppCompatActivity {
             // Return the respective fragment.
             switch (position) {
                 case 0:
-                    return ManageExpensesFragment.newInstance(expenseManager);
+                    return ManageExpensesFragment.newInstance();
                 case 1:
-                    return AddAccountFragment.newInstance(expenseManager);
+                    return AddAccountFragment.newInstance();
                 case 2:
-                    return ExpenseLogsFragment.newInstance(expenseManager);
+                    return ExpenseLogsFragment.newInstance();
                 default:
-                    return ManageExpensesFragment.newInstance(expenseManager);
+                    return ManageExpensesFragment.newInstance();
             }
         }
 
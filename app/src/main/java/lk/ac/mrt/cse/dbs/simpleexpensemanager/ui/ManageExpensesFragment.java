@@ -30,30 +30,33 @@ import android.widget.EditText;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
 import android.widget.Spinner;
+import android.widget.Toast;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.ExpenseManagerApplication;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.AccountCatalogueListener;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManager;
-import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.ExpenseManagerCallback;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
 
-import static lk.ac.mrt.cse.dbs.simpleexpensemanager.Constants.EXPENSE_MANAGER;
 /**
- *
+ * The account selector follows the account catalogue of the ExpenseManager, so accounts added on the other tab show
+ * up without reading the accounts again.
  */
-public class ManageExpensesFragment extends Fragment implements View.OnClickListener {
+public class ManageExpensesFragment extends Fragment implements View.OnClickListener, AccountCatalogueListener {
     private Button submitButton;
     private EditText amount;
     private Spinner accountSelector;
     private RadioGroup expenseTypeGroup;
     private DatePicker datePicker;
     private ExpenseManager currentExpenseManager;
+    private ArrayAdapter<String> accountsAdapter;
 
-    public static ManageExpensesFragment newInstance(ExpenseManager expenseManager) {
-        ManageExpensesFragment manageExpensesFragment = new ManageExpensesFragment();
-        Bundle args = new Bundle();
-        args.putSerializable(EXPENSE_MANAGER, expenseManager);
-        manageExpensesFragment.setArguments(args);
-        return manageExpensesFragment;
+    public static ManageExpensesFragment newInstance() {
+        return new ManageExpensesFragment();
     }
 
     public ManageExpensesFragment() {
@@ -67,14 +70,26 @@ public class ManageExpensesFragment extends Fragment implements View.OnClickList
 
         amount = (EditText) rootView.findViewById(R.id.amount);
         accountSelector = (Spinner) rootView.findViewById(R.id.account_selector);
-        currentExpenseManager = (ExpenseManager) getArguments().get(EXPENSE_MANAGER);
-        ArrayAdapter<String> adapter =
-                null;
+        accountsAdapter = new ArrayAdapter<>(getActivity(), R.layout.support_simple_spinner_dropdown_item,
+                new ArrayList<String>());
+        accountSelector.setAdapter(accountsAdapter);
+        currentExpenseManager = ExpenseManagerApplication.getExpenseManager(getActivity());
         if (currentExpenseManager != null) {
-            adapter = new ArrayAdapter<>(this.getActivity(), R.layout.support_simple_spinner_dropdown_item,
-                    currentExpenseManager.getAccountNumbersList());
+            // the accounts known so far arrive first, then each account added or removed
+            currentExpenseManager.addAccountCatalogueListener(this, new ExpenseManagerCallback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    if (isAdded()) {
+                        Toast.makeText(getActivity(), getString(R.string.msg_accounts_unable) + e.getMessage(),
+                                Toast.LENGTH_LONG).show();
+                    }
+                }
+            });
         }
-        accountSelector.setAdapter(adapter);
 
         expenseTypeGroup = (RadioGroup) rootView.findViewById(R.id.expense_type_group);
         RadioButton expenseType = (RadioButton) rootView.findViewById(R.id.expense);
@@ -83,6 +98,37 @@ public class ManageExpensesFragment extends Fragment implements View.OnClickList
         return rootView;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (currentExpenseManager != null) {
+            currentExpenseManager.removeAccountCatalogueListener(this);
+        }
+    }
+
+    @Override
+    public void onAccountsLoaded(List<String> accountNumbers) {
+        // the view may be gone by the time the accounts are read
+        if (isAdded()) {
+            accountsAdapter.clear();
+            accountsAdapter.addAll(accountNumbers);
+        }
+    }
+
+    @Override
+    public void onAccountAdded(String accountNo) {
+        if (isAdded()) {
+            accountsAdapter.add(accountNo);
+        }
+    }
+
+    @Override
+    public void onAccountRemoved(String accountNo) {
+        if (isAdded()) {
+            accountsAdapter.remove(accountNo);
+        }
+    }
+
     @Override
     public void onClick(View view) {
         switch (view.getId()) {
@@ -102,24 +148,36 @@ public class ManageExpensesFragment extends Fragment implements View.OnClickList
                 }
 
                 if (currentExpenseManager != null) {
-                    try {
-                        currentExpenseManager.updateAccountBalance(selectedAccount, day, month, year,
-                                ExpenseType.valueOf(type.toUpperCase()), amountStr);
-                    } catch (InvalidAccountException e) {
-                        new AlertDialog.Builder(this.getActivity())
-                                .setTitle(this.getString(R.string.msg_account_update_unable) + selectedAccount)
-                                .setMessage(e.getMessage())
-                                .setNeutralButton(this.getString(R.string.msg_ok),
-                                        new DialogInterface.OnClickListener() {
-                                    @Override
-                                    public void onClick(DialogInterface dialog, int which) {
-                                        dialog.cancel();
-                                    }
-                                }).setIcon(android.R.drawable.ic_dialog_alert).show();
-                    }
+                    final String account = selectedAccount;
+                    currentExpenseManager.updateAccountBalanceAsync(selectedAccount, day, month, year,
+                            ExpenseType.valueOf(type.toUpperCase()), amountStr, new ExpenseManagerCallback<Void>() {
+                        @Override
+                        public void onSuccess(Void result) {
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            if (isAdded()) {
+                                showUpdateError(account, e);
+                            }
+                        }
+                    });
                 }
                 amount.getText().clear();
                 break;
         }
     }
+
+    private void showUpdateError(String selectedAccount, Exception e) {
+        new AlertDialog.Builder(this.getActivity())
+                .setTitle(this.getString(R.string.msg_account_update_unable) + selectedAccount)
+                .setMessage(e.getMessage())
+                .setNeutralButton(this.getString(R.string.msg_ok),
+                        new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dialog.cancel();
+                    }
+                }).setIcon(android.R.drawable.ic_dialog_alert).show();
+    }
 }
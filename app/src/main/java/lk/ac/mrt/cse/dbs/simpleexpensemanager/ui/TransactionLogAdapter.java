@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.ui;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import java.text.DateFormat;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.R;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Shows a view of the transaction logs newest first, one recycled row per visible transaction. Only the rows bound
+ * are read from the view, which keeps a bounded window of them, so the memory used does not grow with the log or
+ * with how far it is scrolled. As with a cursor adapter, the view may refill its cursor window while a row is bound.
+ */
+public class TransactionLogAdapter extends RecyclerView.Adapter<TransactionLogAdapter.ViewHolder> {
+    private TransactionLogView transactions;
+    // shared by every row, only used on the main thread
+    private final DateFormat dateFormat;
+
+    public TransactionLogAdapter(DateFormat dateFormat) {
+        this.dateFormat = dateFormat;
+    }
+
+    /**
+     * Show the given view of the transaction logs in place of the current one, which is closed. Pass null to close
+     * the current one and show nothing.
+     */
+    public void setTransactions(TransactionLogView transactions) {
+        if (this.transactions != null) {
+            this.transactions.close();
+        }
+        this.transactions = transactions;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View itemView = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_transaction_log, parent, false);
+        return new ViewHolder(itemView);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        // the view is in the order of insertion, and the list shows the newest first
+        Transaction transaction = transactions.get(transactions.size() - 1 - position);
+        holder.date.setText(dateFormat.format(transaction.getDate()));
+        holder.accountNo.setText(transaction.getAccountNo());
+        holder.expenseType.setText(transaction.getExpenseType().toString());
+        holder.amount.setText(Money.format(transaction.getAmount()));
+    }
+
+    @Override
+    public int getItemCount() {
+        return transactions == null ? 0 : transactions.size();
+    }
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView date;
+        final TextView accountNo;
+        final TextView expenseType;
+        final TextView amount;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            date = (TextView) itemView.findViewById(R.id.log_date);
+            accountNo = (TextView) itemView.findViewById(R.id.log_account);
+            expenseType = (TextView) itemView.findViewById(R.id.log_type);
+            amount = (TextView) itemView.findViewById(R.id.log_amount);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+
+/**
+ * Latency of single account operations. The postings alternate between income and expense so that the balances stay
+ * put across iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountDAOBenchmark {
+    @Param({"inMemory", "concurrent", "jdbc", "cachedJdbc"})
+    public String backend;
+
+    private BenchmarkStorage storage;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        storage = BenchmarkStorage.open(backend);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        storage.close();
+    }
+
+    @Benchmark
+    public void updateBalance() throws InvalidAccountException {
+        int i = next++;
+        storage.accountDAO.updateBalance(BenchmarkStorage.accountNo(i % BenchmarkStorage.ACCOUNTS),
+                (i & 1) == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE, 100);
+    }
+
+    @Benchmark
+    public Account getAccount() throws InvalidAccountException {
+        return storage.accountDAO.getAccount(BenchmarkStorage.accountNo(next++ % BenchmarkStorage.ACCOUNTS));
+    }
+}
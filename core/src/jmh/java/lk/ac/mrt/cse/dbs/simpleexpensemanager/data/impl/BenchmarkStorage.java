@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * A pair of DAOs of one backend, opened for a benchmark. The backends are
+ * <ul>
+ * <li>inMemory - InMemoryAccountDAO and InMemoryTransactionDAO</li>
+ * <li>concurrent - ConcurrentInMemoryAccountDAO and ColumnarTransactionDAO</li>
+ * <li>jdbc - JdbcAccountDAO and JdbcTransactionDAO over an SQLite file</li>
+ * <li>cachedJdbc - as jdbc, with the accounts behind a CachingAccountDAO</li>
+ * </ul>
+ * The Android DAOs need a device, the JDBC ones run the same SQL on the same schema.
+ */
+final class BenchmarkStorage {
+    static final int ACCOUNTS = 16;
+    // large enough that no posting is refused for lack of balance
+    static final long INITIAL_BALANCE = Long.MAX_VALUE / 4;
+    private static final int POPULATE_BATCH_SIZE = 10000;
+    private static final int DAYS = 3 * 365;
+    private static final int FIRST_DAY = DateCodec.toEpochDay(2020, 1, 1);
+
+    final AccountDAO accountDAO;
+    final TransactionDAO transactionDAO;
+    private final JdbcDatabase database;
+    private final File file;
+
+    private BenchmarkStorage(AccountDAO accountDAO, TransactionDAO transactionDAO, JdbcDatabase database, File file) {
+        this.accountDAO = accountDAO;
+        this.transactionDAO = transactionDAO;
+        this.database = database;
+        this.file = file;
+    }
+
+    static BenchmarkStorage open(String backend) throws IOException, SQLException {
+        BenchmarkStorage storage;
+        switch (backend) {
+            case "inMemory":
+                storage = new BenchmarkStorage(new InMemoryAccountDAO(), new InMemoryTransactionDAO(), null, null);
+                break;
+            case "concurrent":
+                storage = new BenchmarkStorage(new ConcurrentInMemoryAccountDAO(), new ColumnarTransactionDAO(),
+                        null, null);
+                break;
+            case "jdbc":
+            case "cachedJdbc":
+                File file = File.createTempFile("benchmark", ".db");
+                JdbcDatabase database = new JdbcDatabase("jdbc:sqlite:" + file.getPath());
+                AccountDAO accountDAO = new JdbcAccountDAO(database);
+                if (backend.equals("cachedJdbc")) {
+                    accountDAO = new CachingAccountDAO(accountDAO, ACCOUNTS);
+                }
+                storage = new BenchmarkStorage(accountDAO, new JdbcTransactionDAO(database), database, file);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown backend " + backend);
+        }
+        for (int i = 0; i < ACCOUNTS; i++) {
+            storage.accountDAO.addAccount(new Account(accountNo(i), "Bank", "Holder " + i, INITIAL_BALANCE));
+        }
+        return storage;
+    }
+
+    static String accountNo(int i) {
+        return "ACC" + (10000 + i);
+    }
+
+    /**
+     * Build a transaction spread over the accounts and the days of three years.
+     */
+    static Transaction transaction(int i) {
+        return new Transaction(DateCodec.toDate(FIRST_DAY + i % DAYS), accountNo(i % ACCOUNTS),
+                i % 4 == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE, 100 + i % 10000);
+    }
+
+    /**
+     * Add the given number of rows to the transaction log, in batches.
+     */
+    void populate(int rows) {
+        List<Transaction> batch = new ArrayList<>(POPULATE_BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            batch.add(transaction(i));
+            if (batch.size() == POPULATE_BATCH_SIZE) {
+                transactionDAO.logTransactions(batch);
+                batch.clear();
+            }
+        }
+        transactionDAO.logTransactions(batch);
+    }
+
+    void close() throws SQLException {
+        if (database != null) {
+            database.close();
+            file.delete();
+        }
+    }
+}
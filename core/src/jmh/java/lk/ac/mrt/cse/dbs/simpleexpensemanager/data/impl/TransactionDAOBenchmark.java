@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Latency of logging a single transaction and of reading the latest page, and the throughput of logging in batches.
+ * The storage is opened again for every iteration with PRELOADED_ROWS rows, so that the log does not keep growing
+ * across iterations.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionDAOBenchmark {
+    private static final int PRELOADED_ROWS = 1000;
+    private static final int BATCH_SIZE = 100;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"inMemory", "concurrent", "jdbc"})
+    public String backend;
+
+    private BenchmarkStorage storage;
+    private List<Transaction> batch;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        storage = BenchmarkStorage.open(backend);
+        storage.populate(PRELOADED_ROWS);
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(BenchmarkStorage.transaction(i));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        storage.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void logTransaction() {
+        Transaction transaction = BenchmarkStorage.transaction(next++);
+        storage.transactionDAO.logTransaction(transaction.getDate(), transaction.getAccountNo(),
+                transaction.getExpenseType(), transaction.getAmount());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void logTransactions() {
+        storage.transactionDAO.logTransactions(batch);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Transaction> getPaginatedTransactionLogs() {
+        return storage.transactionDAO.getPaginatedTransactionLogs(PAGE_SIZE);
+    }
+}
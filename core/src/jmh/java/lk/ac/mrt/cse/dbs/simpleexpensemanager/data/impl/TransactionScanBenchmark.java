@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * Cost of reading the whole transaction log against its size, materialized and streamed, and of reading the latest
+ * page of a large log. The largest sizes need a big heap, see the jvmArgs of the fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class TransactionScanBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"inMemory", "concurrent", "jdbc"})
+    public String backend;
+
+    private BenchmarkStorage storage;
+
+    @Setup
+    public void setUp() throws Exception {
+        storage = BenchmarkStorage.open(backend);
+        storage.populate(rows);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        storage.close();
+    }
+
+    @Benchmark
+    public List<Transaction> getAllTransactionLogs() {
+        return storage.transactionDAO.getAllTransactionLogs();
+    }
+
+    @Benchmark
+    public long visitTransactionLogs() {
+        final long[] total = new long[1];
+        storage.transactionDAO.visitTransactionLogs(new TransactionVisitor() {
+            @Override
+            public boolean visit(Transaction transaction) {
+                total[0] += transaction.getAmount();
+                return true;
+            }
+        });
+        return total[0];
+    }
+
+    @Benchmark
+    public List<Transaction> getPaginatedTransactionLogs() {
+        return storage.transactionDAO.getPaginatedTransactionLogs(20);
+    }
+}
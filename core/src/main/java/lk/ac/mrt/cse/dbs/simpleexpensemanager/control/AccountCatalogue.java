@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+
+/**
+ * The AccountCatalogue keeps the account numbers in memory. They are read from the AccountDAO once, when first asked
+ * for, and are then kept up to date by the ExpenseManager as it adds and removes accounts, each change being pushed to
+ * the registered listeners. Accounts added to or removed from the AccountDAO directly are not seen until the
+ * ExpenseManager is set up again.
+ */
+public class AccountCatalogue {
+    private final AccountDAO accountDAO;
+    private final List<AccountCatalogueListener> listeners = new CopyOnWriteArrayList<>();
+    // registered, but still waiting for the account numbers, guarded by this
+    private final Set<AccountCatalogueListener> waitingListeners = new HashSet<>();
+    // null until first asked for, guarded by this
+    private Set<String> accountNumbers;
+    private volatile Executor callbackExecutor;
+
+    public AccountCatalogue(AccountDAO accountDAO) {
+        this.accountDAO = accountDAO;
+    }
+
+    /***
+     * Get the account numbers, reading them from the AccountDAO the first time.
+     *
+     * @return - a copy of the account numbers, in the order they were added
+     */
+    public synchronized List<String> getAccountNumbers() {
+        return new ArrayList<>(load());
+    }
+
+    /***
+     * Register a listener without reading anything. It receives nothing until {@link #deliverAccounts} is called for
+     * it, and is dropped by {@link #removeListener} from then on.
+     *
+     * @param listener
+     */
+    public synchronized void addListener(AccountCatalogueListener listener) {
+        waitingListeners.add(listener);
+    }
+
+    /***
+     * Hand the account numbers known at the time to a registered listener, which then receives every change. The
+     * account numbers are read from the AccountDAO if they have not been yet. Does nothing if the listener was removed
+     * meanwhile.
+     *
+     * @param listener
+     */
+    public synchronized void deliverAccounts(final AccountCatalogueListener listener) {
+        if (!waitingListeners.contains(listener)) {
+            return;
+        }
+        // the listener is kept waiting if the account numbers can not be read
+        final List<String> snapshot = new ArrayList<>(load());
+        waitingListeners.remove(listener);
+        listeners.add(listener);
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                listener.onAccountsLoaded(snapshot);
+            }
+        });
+    }
+
+    /***
+     * Unregister a listener. A change already on its way to the callback executor may still reach it.
+     *
+     * @param listener
+     */
+    public synchronized void removeListener(AccountCatalogueListener listener) {
+        waitingListeners.remove(listener);
+        listeners.remove(listener);
+    }
+
+    /***
+     * Record an account added to the AccountDAO, and tell the listeners unless it is already known.
+     *
+     * @param accountNo
+     */
+    synchronized void accountAdded(final String accountNo) {
+        // the account is read with the others if they were not read yet
+        if (accountNumbers == null || !accountNumbers.add(accountNo)) {
+            return;
+        }
+        for (final AccountCatalogueListener listener : listeners) {
+            deliver(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onAccountAdded(accountNo);
+                }
+            });
+        }
+    }
+
+    /***
+     * Record an account removed from the AccountDAO, and tell the listeners if it was known.
+     *
+     * @param accountNo
+     */
+    synchronized void accountRemoved(final String accountNo) {
+        if (accountNumbers == null || !accountNumbers.remove(accountNo)) {
+            return;
+        }
+        for (final AccountCatalogueListener listener : listeners) {
+            deliver(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onAccountRemoved(accountNo);
+                }
+            });
+        }
+    }
+
+    /***
+     * Set the executor the listeners are called on. By default they are called on the thread which made the change.
+     *
+     * @param callbackExecutor
+     */
+    void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    private Set<String> load() {
+        if (accountNumbers == null) {
+            accountNumbers = new LinkedHashSet<>(accountDAO.getAccountNumbersList());
+        }
+        return accountNumbers;
+    }
+
+    // called with the lock held, so that the listeners get the changes in the order they were made
+    private void deliver(Runnable runnable) {
+        Executor executor = callbackExecutor;
+        if (executor == null) {
+            runnable.run();
+        } else {
+            executor.execute(runnable);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import java.util.List;
+
+/**
+ * Receives the account numbers of an AccountCatalogue once it is registered, and then every change made to them. The
+ * methods are called one at a time and in order, on the callback executor of the ExpenseManager.
+ */
+public interface AccountCatalogueListener {
+
+    /***
+     * Called once, when the listener is registered.
+     *
+     * @param accountNumbers - the account numbers known at the time, in the order they were added
+     */
+    public void onAccountsLoaded(List<String> accountNumbers);
+
+    /***
+     * Called when an account is added through the ExpenseManager.
+     *
+     * @param accountNo - of the account added, which comes after all the known accounts
+     */
+    public void onAccountAdded(String accountNo);
+
+    /***
+     * Called when an account is removed through the ExpenseManager.
+     *
+     * @param accountNo - of the account removed
+     */
+    public void onAccountRemoved(String accountNo);
+}
@@ -0,0 +1,609 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.TransactionAnalytics.TimeBucket;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.exception.ExpenseManagerException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionApplier;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.MetricsAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.MetricsTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MethodMetrics;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Money;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlySummary;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionTotals;
+
+/**
+ * The ExpenseManager acts as the mediator when performing transactions. This is an abstract class with an abstract
+ * method to setup the DAO objects depending on the implementation.
+ * <p/>
+ * The asynchronous variants of the methods run writes one at a time on a single writer thread, in the order they
+ * were called, and reads on a small pool of reader threads. A read waits for the writes called before it, so it
+ * always sees them.
+ * <p/>
+ * The account numbers are kept in an {@link AccountCatalogue}, read once and then updated as accounts are added and
+ * removed through the ExpenseManager, and the changes are pushed to the registered {@link AccountCatalogueListener}s.
+ */
+public abstract class ExpenseManager {
+    public static final int TRANSACTION_PAGE_SIZE = 10;
+    private static final int READER_THREADS = 2;
+
+    private AccountDAO accountsHolder;
+    private TransactionDAO transactionsHolder;
+
+    // the threads are created when first needed
+    private ExecutorService writer;
+    private ExecutorService readers;
+    private Future<?> lastWrite;
+    private Executor callbackExecutor;
+    private AccountCatalogue accountCatalogue;
+    // created when first needed, on the current TransactionDAO
+    private TransactionAnalytics transactionAnalytics;
+
+    /***
+     * Get list of account numbers as String. They are read from the accounts dao only the first time.
+     *
+     * @return
+     */
+    public List<String> getAccountNumbersList() {
+        return getAccountCatalogue().getAccountNumbers();
+    }
+
+    /***
+     * Get the in-memory catalogue of the account numbers.
+     *
+     * @return
+     */
+    public synchronized AccountCatalogue getAccountCatalogue() {
+        if (accountCatalogue == null) {
+            accountCatalogue = new AccountCatalogue(accountsHolder);
+            accountCatalogue.setCallbackExecutor(callbackExecutor);
+        }
+        return accountCatalogue;
+    }
+
+    /***
+     * Register a listener of the account catalogue. The listener is registered at once, so that removing it right
+     * after always works, while the account numbers are read on a reader thread. The listener first receives the
+     * account numbers and then every change, on the callback executor.
+     *
+     * @param listener
+     * @param callback - receives null once the account numbers are handed to the listener, or the exception if they
+     *                 can not be read, may be null
+     * @return
+     */
+    public Future<Void> addAccountCatalogueListener(final AccountCatalogueListener listener,
+                                                    ExpenseManagerCallback<Void> callback) {
+        final AccountCatalogue catalogue = getAccountCatalogue();
+        catalogue.addListener(listener);
+        return submitRead(new Callable<Void>() {
+            @Override
+            public Void call() {
+                catalogue.deliverAccounts(listener);
+                return null;
+            }
+        }, callback);
+    }
+
+    /***
+     * Unregister a listener of the account catalogue.
+     *
+     * @param listener
+     */
+    public void removeAccountCatalogueListener(AccountCatalogueListener listener) {
+        getAccountCatalogue().removeListener(listener);
+    }
+
+    /***
+     * Update the account balance.
+     *
+     * @param accountNo
+     * @param day
+     * @param month
+     * @param year
+     * @param expenseType
+     * @param amount      - decimal amount as entered by the user
+     * @throws InvalidAccountException
+     */
+    public void updateAccountBalance(String accountNo, int day, int month, int year, ExpenseType expenseType,
+                                     String amount) throws InvalidAccountException {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(year, month, day);
+        Date transactionDate = calendar.getTime();
+
+        if (!amount.isEmpty()) {
+            postTransaction(transactionDate, accountNo, expenseType, Money.parseCents(amount));
+        }
+    }
+
+    /***
+     * Log the transaction and update the balance of the account. Implementations may override this to defer the
+     * work, in which case {@link #flush()} must write it.
+     *
+     * @param date
+     * @param accountNo
+     * @param expenseType
+     * @param amount      - in cents
+     * @throws InvalidAccountException
+     */
+    protected void postTransaction(Date date, String accountNo, ExpenseType expenseType, long amount)
+            throws InvalidAccountException {
+        if (accountsHolder instanceof TransactionApplier
+                && ((TransactionApplier) accountsHolder).canApplyTo(transactionsHolder)) {
+            // log the transaction and update the balance in one atomic operation
+            ((TransactionApplier) accountsHolder).applyTransaction(date, accountNo, expenseType, amount);
+        } else {
+            transactionsHolder.logTransaction(date, accountNo, expenseType, amount);
+            accountsHolder.updateBalance(accountNo, expenseType, amount);
+        }
+    }
+
+    /***
+     * Write any transactions held back by the implementation, returning once they are stored. Does nothing by
+     * default.
+     */
+    public void flush() {
+    }
+
+    /***
+     * Write any transactions held back by the implementation on the writer thread, after the writes called before.
+     *
+     * @param callback - receives null once they are stored, may be null
+     * @return
+     */
+    public Future<Void> flushAsync(ExpenseManagerCallback<Void> callback) {
+        return submitWrite(new Callable<Void>() {
+            @Override
+            public Void call() {
+                flush();
+                return null;
+            }
+        }, callback);
+    }
+
+    /***
+     * Update the account balance on the writer thread.
+     *
+     * @param accountNo
+     * @param day
+     * @param month
+     * @param year
+     * @param expenseType
+     * @param amount      - decimal amount as entered by the user
+     * @param callback    - receives null, or the InvalidAccountException, may be null
+     * @return
+     */
+    public Future<Void> updateAccountBalanceAsync(final String accountNo, final int day, final int month,
+                                                  final int year, final ExpenseType expenseType, final String amount,
+                                                  ExpenseManagerCallback<Void> callback) {
+        return submitWrite(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                updateAccountBalance(accountNo, day, month, year, expenseType, amount);
+                return null;
+            }
+        }, callback);
+    }
+
+    /***
+     * Get a list of transaction logs.
+     *
+     * @return
+     */
+    public List<Transaction> getTransactionLogs() {
+        return transactionsHolder.getPaginatedTransactionLogs(TRANSACTION_PAGE_SIZE);
+    }
+
+    /***
+     * Get a list of transaction logs on a reader thread.
+     *
+     * @param callback - receives the transaction logs, may be null
+     * @return
+     */
+    public Future<List<Transaction>> getTransactionLogsAsync(ExpenseManagerCallback<List<Transaction>> callback) {
+        return submitRead(new Callable<List<Transaction>>() {
+            @Override
+            public List<Transaction> call() {
+                return getTransactionLogs();
+            }
+        }, callback);
+    }
+
+    /***
+     * Open a read-only view of all the transaction logs, in the order they were logged. The persistent storage reads
+     * the transactions only as they are asked for, so a view of a large log is cheap to open. The view must be closed
+     * once it is no longer needed.
+     *
+     * @return
+     */
+    public TransactionLogView getTransactionLogsView() {
+        return transactionsHolder.getTransactionLogsView();
+    }
+
+    /***
+     * Open a read-only view of all the transaction logs on a reader thread.
+     *
+     * @param callback - receives the view, which it must close once it is no longer needed, may be null
+     * @return
+     */
+    public Future<TransactionLogView> getTransactionLogsViewAsync(ExpenseManagerCallback<TransactionLogView> callback) {
+        return submitRead(new Callable<TransactionLogView>() {
+            @Override
+            public TransactionLogView call() {
+                return getTransactionLogsView();
+            }
+        }, callback);
+    }
+
+    /***
+     * Get list of account numbers as String on a reader thread.
+     *
+     * @param callback - receives the account numbers, may be null
+     * @return
+     */
+    public Future<List<String>> getAccountNumbersListAsync(ExpenseManagerCallback<List<String>> callback) {
+        return submitRead(new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                return getAccountNumbersList();
+            }
+        }, callback);
+    }
+
+    /***
+     * Get the page of transaction logs logged before the given transaction. Pass the id of the first transaction of
+     * the current page to get the previous one.
+     *
+     * @param transactionId
+     * @param limit
+     * @return
+     */
+    public List<Transaction> getTransactionLogsBefore(long transactionId, int limit) {
+        return transactionsHolder.getTransactionLogsBefore(transactionId, limit);
+    }
+
+    /***
+     * Get the monthly totals of each expense type for the given account.
+     *
+     * @param accountNo
+     * @return
+     */
+    public List<MonthlySummary> getMonthlySummary(String accountNo) {
+        return transactionsHolder.getMonthlySummary(accountNo);
+    }
+
+    /***
+     * Compute the totals of the whole transaction log by account, by type and by time bucket, on the worker threads of
+     * the analytics.
+     *
+     * @param timeBucket - the size of the time buckets
+     * @return
+     * @throws ExpenseManagerException
+     */
+    public TransactionTotals computeTotals(TimeBucket timeBucket) throws ExpenseManagerException {
+        return getTransactionAnalytics().computeTotals(timeBucket);
+    }
+
+    /***
+     * Compute the totals of the whole transaction log on a reader thread.
+     *
+     * @param timeBucket - the size of the time buckets
+     * @param callback   - receives the totals, or the ExpenseManagerException, may be null
+     * @return
+     */
+    public Future<TransactionTotals> computeTotalsAsync(final TimeBucket timeBucket,
+                                                        ExpenseManagerCallback<TransactionTotals> callback) {
+        return submitRead(new Callable<TransactionTotals>() {
+            @Override
+            public TransactionTotals call() throws ExpenseManagerException {
+                return computeTotals(timeBucket);
+            }
+        }, callback);
+    }
+
+    /***
+     * Get the analytics of the transaction log, creating them the first time.
+     *
+     * @return
+     */
+    public synchronized TransactionAnalytics getTransactionAnalytics() {
+        if (transactionAnalytics == null) {
+            transactionAnalytics = new TransactionAnalytics(transactionsHolder);
+        }
+        return transactionAnalytics;
+    }
+
+    /***
+     * Add account to the accounts dao.
+     *
+     * @param accountNo
+     * @param bankName
+     * @param accountHolderName
+     * @param initialBalance - in cents
+     */
+    public void addAccount(String accountNo, String bankName, String accountHolderName, long initialBalance) {
+        Account account = new Account(accountNo, bankName, accountHolderName, initialBalance);
+        accountsHolder.addAccount(account);
+        getAccountCatalogue().accountAdded(accountNo);
+    }
+
+    /***
+     * Add account to the accounts dao on the writer thread.
+     *
+     * @param accountNo
+     * @param bankName
+     * @param accountHolderName
+     * @param initialBalance - in cents
+     * @param callback       - receives null once the account is added, may be null
+     * @return
+     */
+    public Future<Void> addAccountAsync(final String accountNo, final String bankName, final String accountHolderName,
+                                        final long initialBalance, ExpenseManagerCallback<Void> callback) {
+        return submitWrite(new Callable<Void>() {
+            @Override
+            public Void call() {
+                addAccount(accountNo, bankName, accountHolderName, initialBalance);
+                return null;
+            }
+        }, callback);
+    }
+
+    /***
+     * Remove account from the accounts dao.
+     *
+     * @param accountNo
+     * @throws InvalidAccountException
+     */
+    public void removeAccount(String accountNo) throws InvalidAccountException {
+        accountsHolder.removeAccount(accountNo);
+        getAccountCatalogue().accountRemoved(accountNo);
+    }
+
+    /***
+     * Remove account from the accounts dao on the writer thread.
+     *
+     * @param accountNo
+     * @param callback  - receives null, or the InvalidAccountException, may be null
+     * @return
+     */
+    public Future<Void> removeAccountAsync(final String accountNo, ExpenseManagerCallback<Void> callback) {
+        return submitWrite(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                removeAccount(accountNo);
+                return null;
+            }
+        }, callback);
+    }
+
+    /***
+     * Set the executor the callbacks of the asynchronous methods and the account catalogue listeners are run on, for
+     * example one posting to the main thread. By default they run on the thread which did the work.
+     *
+     * @param callbackExecutor
+     */
+    public synchronized void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        if (accountCatalogue != null) {
+            accountCatalogue.setCallbackExecutor(callbackExecutor);
+        }
+    }
+
+    /***
+     * Stop the writer and reader threads once the calls already made are done, and the worker threads of the
+     * analytics. They are started again by the next call needing them.
+     */
+    public synchronized void shutdown() {
+        stopAnalytics();
+        if (writer != null) {
+            writer.shutdown();
+            readers.shutdown();
+            writer = null;
+            readers = null;
+            lastWrite = null;
+        }
+    }
+
+    private synchronized <T> Future<T> submitWrite(Callable<T> task, ExpenseManagerCallback<T> callback) {
+        startThreads();
+        Future<T> write = writer.submit(new CallbackTask<>(task, callback, callbackExecutor));
+        lastWrite = write;
+        return write;
+    }
+
+    private synchronized <T> Future<T> submitRead(final Callable<T> task, ExpenseManagerCallback<T> callback) {
+        startThreads();
+        Callable<T> read = task;
+        // a write cancelled by its caller is done at once, while the writes before it may still be running
+        if (lastWrite != null && (!lastWrite.isDone() || lastWrite.isCancelled())) {
+            // the writer runs its tasks in order, so this one is done once all the writes called before it are
+            final Future<?> pendingWrites = writer.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            read = new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    try {
+                        pendingWrites.get();
+                    } catch (ExecutionException | CancellationException e) {
+                        // the failures of the writes are reported to their own callbacks
+                    }
+                    return task.call();
+                }
+            };
+        }
+        return readers.submit(new CallbackTask<>(read, callback, callbackExecutor));
+    }
+
+    private void stopAnalytics() {
+        if (transactionAnalytics != null) {
+            transactionAnalytics.shutdown();
+            transactionAnalytics = null;
+        }
+    }
+
+    private void startThreads() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(new NamedThreadFactory("expense-writer"));
+            readers = Executors.newFixedThreadPool(READER_THREADS, new NamedThreadFactory("expense-reader"));
+        }
+    }
+
+    /**
+     * Runs a task and hands its result or exception to a callback on the given executor.
+     */
+    private static class CallbackTask<T> implements Callable<T> {
+        private final Callable<T> task;
+        private final ExpenseManagerCallback<T> callback;
+        private final Executor callbackExecutor;
+
+        CallbackTask(Callable<T> task, ExpenseManagerCallback<T> callback, Executor callbackExecutor) {
+            this.task = task;
+            this.callback = callback;
+            this.callbackExecutor = callbackExecutor;
+        }
+
+        @Override
+        public T call() throws Exception {
+            final T result;
+            try {
+                result = task.call();
+            } catch (final Exception e) {
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onFailure(e);
+                    }
+                });
+                throw e;
+            }
+            deliver(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onSuccess(result);
+                }
+            });
+            return result;
+        }
+
+        private void deliver(Runnable runnable) {
+            if (callback == null) {
+                return;
+            }
+            if (callbackExecutor == null) {
+                runnable.run();
+            } else {
+                callbackExecutor.execute(runnable);
+            }
+        }
+    }
+
+    /***
+     * Get access to the AccountDAO concrete implementation.
+     *
+     * @return
+     */
+    public AccountDAO getAccountsDAO() {
+        return accountsHolder;
+    }
+
+    /***
+     * Set the concrete AccountDAO implementation. The account catalogue is read again from it, without the listeners
+     * of the previous one.
+     *
+     * @param accountDAO
+     */
+    public synchronized void setAccountsDAO(AccountDAO accountDAO) {
+        this.accountsHolder = accountDAO;
+        this.accountCatalogue = null;
+    }
+
+    /***
+     * Get access to the TransactionDAO concrete implementation.
+     *
+     * @return
+     */
+    public TransactionDAO getTransactionsDAO() {
+        return transactionsHolder;
+    }
+
+    /***
+     * Set the concrete TransactionDAO implementation.
+     *
+     * @param transactionDAO
+     */
+    public synchronized void setTransactionsDAO(TransactionDAO transactionDAO) {
+        this.transactionsHolder = transactionDAO;
+        stopAnalytics();
+    }
+
+    /***
+     * Wrap the current DAOs so that the calls to every method are counted and timed. It is meant to be called from
+     * setup() once the DAOs are set, and before anything else holds on to them.
+     */
+    protected void enableMetrics() {
+        if (!(accountsHolder instanceof MetricsAccountDAO)) {
+            setAccountsDAO(new MetricsAccountDAO(accountsHolder));
+        }
+        if (!(transactionsHolder instanceof MetricsTransactionDAO)) {
+            transactionsHolder = new MetricsTransactionDAO(transactionsHolder);
+        }
+    }
+
+    /***
+     * Get a snapshot of the call counts, error counts and latencies of each DAO method. The list is empty unless the
+     * metrics are enabled by setup().
+     *
+     * @return
+     */
+    public List<MethodMetrics> getMetrics() {
+        List<MethodMetrics> metrics = new ArrayList<>();
+        if (accountsHolder instanceof MetricsAccountDAO) {
+            metrics.addAll(((MetricsAccountDAO) accountsHolder).getMetrics());
+        }
+        if (transactionsHolder instanceof MetricsTransactionDAO) {
+            metrics.addAll(((MetricsTransactionDAO) transactionsHolder).getMetrics());
+        }
+        return metrics;
+    }
+
+    /***
+     * This method should be implemented by the concrete implementation of this class. It will dictate how the DAO
+     * objects will be initialized.
+     */
+    public abstract void setup() throws ExpenseManagerException;
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+/**
+ * Receives the outcome of an asynchronous call on the ExpenseManager. Exactly one of the methods is called, on the
+ * callback executor of the ExpenseManager.
+ *
+ * @param <T> the type of the result
+ */
+public interface ExpenseManagerCallback<T> {
+
+    /***
+     * Called when the call completed.
+     *
+     * @param result - the result of the call, null for calls without a result
+     */
+    public void onSuccess(T result);
+
+    /***
+     * Called when the call threw an exception.
+     *
+     * @param e - the exception thrown
+     */
+    public void onFailure(Exception e);
+}
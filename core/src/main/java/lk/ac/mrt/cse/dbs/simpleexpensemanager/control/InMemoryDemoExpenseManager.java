@@ -42,8 +42,8 @@ public class InMemoryDemoExpenseManager extends ExpenseManager {
         setAccountsDAO(inMemoryAccountDAO);
 
         // dummy data
-        Account dummyAcct1 = new Account("12345A", "Yoda Bank", "Anakin Skywalker", 10000.0);
-        Account dummyAcct2 = new Account("78945Z", "Clone BC", "Obi-Wan Kenobi", 80000.0);
+        Account dummyAcct1 = new Account("12345A", "Yoda Bank", "Anakin Skywalker", 1000000);
+        Account dummyAcct2 = new Account("78945Z", "Clone BC", "Obi-Wan Kenobi", 8000000);
         getAccountsDAO().addAccount(dummyAcct1);
         getAccountsDAO().addAccount(dummyAcct2);
 
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import java.sql.SQLException;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.exception.ExpenseManagerException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.JdbcAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.JdbcDatabase;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.JdbcTransactionDAO;
+
+/**
+ * This is an ExpenseManager over an SQLite database accessed through JDBC, so that the persistent storage can be used
+ * and measured without a device. The url is a JDBC url such as "jdbc:sqlite:expenses.db".
+ */
+public class JdbcExpenseManager extends ExpenseManager {
+    private final String url;
+    private JdbcDatabase database;
+
+    public JdbcExpenseManager(String url) throws ExpenseManagerException {
+        this.url = url;
+        setup();
+    }
+
+    @Override
+    public void setup() throws ExpenseManagerException {
+        try {
+            database = new JdbcDatabase(url);
+        } catch (SQLException e) {
+            throw new ExpenseManagerException("Failed to open the database " + url, e);
+        }
+        setAccountsDAO(new JdbcAccountDAO(database));
+        setTransactionsDAO(new JdbcTransactionDAO(database));
+    }
+
+    /***
+     * Stop the threads and close the database. The manager can not be used afterwards.
+     *
+     * @throws ExpenseManagerException - if the database fails to close
+     */
+    public void close() throws ExpenseManagerException {
+        shutdown();
+        try {
+            database.close();
+        } catch (SQLException e) {
+            throw new ExpenseManagerException("Failed to close the database " + url, e);
+        }
+    }
+}
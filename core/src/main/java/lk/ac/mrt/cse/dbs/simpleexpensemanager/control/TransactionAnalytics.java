@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.exception.ExpenseManagerException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DateCodec;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionTotals;
+
+/**
+ * The TransactionAnalytics computes the totals of the whole transaction log by account, by type and by time bucket.
+ * The id space of the log is split into ranges, each range is streamed and summed by a worker of a fixed thread pool,
+ * and the partial totals are merged at the end. With the persistent implementation every worker runs its own query on
+ * its id range, so the passes over a long history run on all the cores instead of on a single cursor.
+ * <p/>
+ * The ranges run from id 1 to the newest id, since every TransactionDAO assigns increasing ids from 1. Ids left
+ * unused, such as those of the transactions removed with their account, are simply not visited, so the totals stay
+ * right, but the ranges covering them do less work than the others.
+ * <p/>
+ * The workers are daemon threads, so analytics which are never shut down do not keep the process alive.
+ */
+public class TransactionAnalytics {
+    // below this many transactions per range the cost of a task is larger than the work it does
+    private static final int MIN_RANGE_SIZE = 2048;
+    private static final int RANGES_PER_THREAD = 4;
+
+    /**
+     * The size of the time buckets of the totals. The key of a bucket is the epoch day for DAY, the number yyyyMM for
+     * MONTH and the year for YEAR.
+     */
+    public enum TimeBucket {
+        DAY, MONTH, YEAR
+    }
+
+    private final TransactionDAO transactionDAO;
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public TransactionAnalytics(TransactionDAO transactionDAO) {
+        this(transactionDAO, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TransactionAnalytics(TransactionDAO transactionDAO, int parallelism) {
+        this.transactionDAO = transactionDAO;
+        this.parallelism = Math.max(1, parallelism);
+        this.executor = Executors.newFixedThreadPool(this.parallelism,
+                new NamedThreadFactory("transaction-analytics"));
+    }
+
+    /***
+     * Compute the totals of all the transactions logged so far.
+     *
+     * @param timeBucket - the size of the time buckets
+     * @return
+     * @throws ExpenseManagerException
+     */
+    public TransactionTotals computeTotals(TimeBucket timeBucket) throws ExpenseManagerException {
+        // ids are assigned in increasing order, so the newest transaction bounds the id space
+        List<Transaction> newest = transactionDAO.getPaginatedTransactionLogs(1);
+        if (newest.isEmpty()) {
+            return new TransactionTotals();
+        }
+        long endId = newest.get(0).getTransactionId() + 1;
+        long rangeSize = Math.max(MIN_RANGE_SIZE, (endId - 1) / ((long) parallelism * RANGES_PER_THREAD) + 1);
+
+        List<Future<TransactionTotals>> partials = new ArrayList<>();
+        TransactionTotals totals = new TransactionTotals();
+        try {
+            for (long fromId = 1; fromId < endId; fromId += rangeSize) {
+                partials.add(executor.submit(new RangeTask(fromId, Math.min(fromId + rangeSize, endId),
+                        timeBucket)));
+            }
+            for (Future<TransactionTotals> partial : partials) {
+                totals.merge(partial.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExpenseManagerException("Interrupted while computing the totals", e);
+        } catch (ExecutionException e) {
+            throw new ExpenseManagerException("Failed to compute the totals", e.getCause());
+        } catch (RejectedExecutionException e) {
+            throw new ExpenseManagerException("The analytics are shut down", e);
+        } finally {
+            for (Future<TransactionTotals> partial : partials) {
+                partial.cancel(true);
+            }
+        }
+        return totals;
+    }
+
+    /***
+     * Stop the worker threads. The analytics can not be used afterwards.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /***
+     * Get the key of the bucket the given epoch day falls in.
+     *
+     * @param epochDay
+     * @param timeBucket
+     * @return
+     */
+    public static int toBucket(int epochDay, TimeBucket timeBucket) {
+        switch (timeBucket) {
+            case DAY:
+                return epochDay;
+            case MONTH:
+                return DateCodec.toYearMonth(epochDay);
+            default:
+                return DateCodec.toYearMonth(epochDay) / 100;
+        }
+    }
+
+    private class RangeTask implements Callable<TransactionTotals>, TransactionVisitor {
+        private final long fromId;
+        private final long toId;
+        private final TimeBucket timeBucket;
+        private final TransactionTotals totals = new TransactionTotals();
+
+        RangeTask(long fromId, long toId, TimeBucket timeBucket) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.timeBucket = timeBucket;
+        }
+
+        @Override
+        public TransactionTotals call() {
+            transactionDAO.visitTransactionLogs(fromId, toId, this);
+            return totals;
+        }
+
+        @Override
+        public boolean visit(Transaction transaction) {
+            if (transaction.getDate() == null) {
+                // a legacy row whose date could not be migrated belongs to no bucket, as in the monthly summary
+                return true;
+            }
+            int epochDay = DateCodec.toEpochDay(transaction.getDate());
+            totals.add(transaction.getAccountNo(), toBucket(epochDay, timeBucket), transaction.getExpenseType(),
+                    transaction.getAmount());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionApplier;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * The WriteBehindQueue holds postings back and applies them in batches, so that a burst of postings costs one commit
+ * per batch instead of one per posting. A batch is applied once it holds the maximum number of postings, or once the
+ * oldest posting in it has waited for the maximum delay, whichever comes first. Batches are applied in order by a
+ * single background thread.
+ * <p/>
+ * A batch which fails to apply is logged and tried again after a delay which doubles on every attempt. After the
+ * maximum number of attempts its postings are applied one by one, so that a single bad posting does not take the
+ * others of its batch down with it. Each posting which still fails is set aside, so that the postings queued after it
+ * are not held up forever, and can be read with {@link #getRejectedTransactions()}.
+ */
+public class WriteBehindQueue {
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindQueue.class.getName());
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 100;
+
+    private final TransactionApplier transactionApplier;
+    private final int batchSize;
+    private final long maxDelayMillis;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+    private final ScheduledExecutorService flusher;
+    // postings queued or being applied, but neither committed nor set aside yet
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private List<Transaction> pending = new ArrayList<>();
+    private final List<Transaction> rejected = new ArrayList<>();
+    private Future<?> scheduledFlush;
+    // failed attempts of the batch at the front of the pending postings
+    private int failedAttempts;
+    private boolean closed;
+
+    public WriteBehindQueue(TransactionApplier transactionApplier, int batchSize, long maxDelayMillis) {
+        this(transactionApplier, batchSize, maxDelayMillis, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY_MILLIS);
+    }
+
+    WriteBehindQueue(TransactionApplier transactionApplier, int batchSize, long maxDelayMillis, int maxAttempts,
+                     long retryDelayMillis) {
+        this.transactionApplier = transactionApplier;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMillis = retryDelayMillis;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "write-behind-flusher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /***
+     * Queue a posting to be applied with the next batch.
+     *
+     * @param date
+     * @param accountNo
+     * @param expenseType
+     * @param amount      - in cents
+     * @throws IllegalStateException - if the queue is closed
+     */
+    public synchronized void enqueue(Date date, String accountNo, ExpenseType expenseType, long amount) {
+        if (closed) {
+            throw new IllegalStateException("The write-behind queue is closed");
+        }
+        pending.add(new Transaction(date, accountNo, expenseType, amount));
+        depth.incrementAndGet();
+        if (failedAttempts > 0) {
+            // a failed batch is waiting to be tried again, and the postings queued meanwhile go after it
+            return;
+        }
+        if (pending.size() >= batchSize) {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+            }
+            scheduledFlush = flusher.submit(new FlushTask(false));
+        } else if (scheduledFlush == null) {
+            // the first posting of a batch starts the timer of the batch
+            scheduledFlush = flusher.schedule(new FlushTask(false), maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /***
+     * Apply every posting queued so far, returning once each of them is committed or set aside. A failing batch is
+     * tried again with the usual delays before it is set aside.
+     */
+    public void flush() {
+        Future<?> flush;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            flush = flusher.submit(new FlushTask(true));
+        }
+        await(flush);
+    }
+
+    /***
+     * Apply every posting queued so far and stop the background thread. Postings can not be queued afterwards.
+     */
+    public void close() {
+        Future<?> flush;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flush = flusher.submit(new FlushTask(true));
+            flusher.shutdown();
+        }
+        await(flush);
+    }
+
+    /***
+     * Get the number of postings which are not committed yet.
+     *
+     * @return
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /***
+     * Get the postings set aside because they failed to apply on their own, after their batch failed the maximum
+     * number of times.
+     *
+     * @return - a copy of the postings, in the order they were queued
+     */
+    public synchronized List<Transaction> getRejectedTransactions() {
+        return new ArrayList<>(rejected);
+    }
+
+    /***
+     * Get the number of postings set aside so far.
+     *
+     * @return
+     */
+    public synchronized int getRejectedCount() {
+        return rejected.size();
+    }
+
+    private static void await(Future<?> flush) {
+        try {
+            flush.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to apply the queued postings", e.getCause());
+        }
+    }
+
+    /**
+     * Takes up to a batch of the pending postings and applies them. Postings left over are handed to the next task,
+     * or applied by the same task when draining. Only ever runs on the flusher thread, so batches are applied in the
+     * order they were queued.
+     */
+    private class FlushTask implements Runnable {
+        private final boolean drain;
+
+        FlushTask(boolean drain) {
+            this.drain = drain;
+        }
+
+        @Override
+        public void run() {
+            boolean more;
+            do {
+                List<Transaction> batch;
+                synchronized (WriteBehindQueue.this) {
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                    if (pending.size() <= batchSize) {
+                        batch = pending;
+                        pending = new ArrayList<>();
+                    } else {
+                        batch = new ArrayList<>(pending.subList(0, batchSize));
+                        pending = new ArrayList<>(pending.subList(batchSize, pending.size()));
+                    }
+                    more = !pending.isEmpty();
+                    scheduledFlush = null;
+                    if (more && !drain && !closed) {
+                        // the postings left over have waited long enough already
+                        scheduledFlush = flusher.submit(new FlushTask(false));
+                    }
+                }
+                try {
+                    transactionApplier.applyTransactions(batch);
+                } catch (RuntimeException e) {
+                    long delayMillis = onFailure(batch, e);
+                    if (delayMillis < 0) {
+                        applyOneByOne(batch);
+                        more = true;
+                        continue;
+                    }
+                    if (!drain) {
+                        return;
+                    }
+                    try {
+                        Thread.sleep(delayMillis);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        synchronized (WriteBehindQueue.this) {
+                            if (!closed) {
+                                // the batch is tried again in the background instead
+                                scheduledFlush = flusher.schedule(new FlushTask(false), delayMillis,
+                                        TimeUnit.MILLISECONDS);
+                            }
+                        }
+                        return;
+                    }
+                    more = true;
+                    continue;
+                }
+                synchronized (WriteBehindQueue.this) {
+                    failedAttempts = 0;
+                }
+                depth.addAndGet(-batch.size());
+            } while (drain && more);
+        }
+
+        /***
+         * Put the failed batch back in front of the postings queued since, or give up on it as a whole once it has
+         * failed too often. Unless draining, a retry is scheduled in place of any flush already scheduled.
+         *
+         * @return - the delay before the batch is tried again, or -1 if its postings are to be applied one by one
+         */
+        private long onFailure(List<Transaction> batch, RuntimeException e) {
+            synchronized (WriteBehindQueue.this) {
+                failedAttempts++;
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                if (failedAttempts >= maxAttempts) {
+                    LOGGER.log(Level.WARNING, "Applying a batch of " + batch.size() + " postings one by one after "
+                            + failedAttempts + " failed attempts", e);
+                    failedAttempts = 0;
+                    if (!drain && !closed && !pending.isEmpty()) {
+                        scheduledFlush = flusher.submit(new FlushTask(false));
+                    }
+                    return -1;
+                }
+                // nothing of the batch was committed, so it is put back in front of the postings queued since
+                batch.addAll(pending);
+                pending = batch;
+                long delayMillis = retryDelayMillis << Math.min(failedAttempts - 1, 16);
+                LOGGER.log(Level.WARNING, "Failed to apply a batch of postings, attempt " + failedAttempts
+                        + " of " + maxAttempts + ", trying again in " + delayMillis + " ms", e);
+                if (!drain && !closed) {
+                    scheduledFlush = flusher.schedule(new FlushTask(false), delayMillis, TimeUnit.MILLISECONDS);
+                }
+                return delayMillis;
+            }
+        }
+
+        /***
+         * Apply the postings of a batch which failed too often each on its own, setting aside those which still fail.
+         *
+         * @param batch
+         */
+        private void applyOneByOne(List<Transaction> batch) {
+            for (Transaction transaction : batch) {
+                try {
+                    transactionApplier.applyTransactions(Collections.singletonList(transaction));
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Set aside a posting on account " + transaction.getAccountNo()
+                            + " which failed to apply", e);
+                    synchronized (WriteBehindQueue.this) {
+                        rejected.add(transaction);
+                    }
+                }
+                depth.decrementAndGet();
+            }
+        }
+    }
+}
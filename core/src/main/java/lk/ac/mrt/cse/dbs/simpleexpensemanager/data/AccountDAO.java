@@ -18,6 +18,7 @@ package lk.ac.mrt.cse.dbs.simpleexpensemanager.data;
 
 import java.util.List;
 
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.DuplicateAccountException;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
 import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
@@ -52,9 +53,11 @@ public interface AccountDAO {
     public Account getAccount(String accountNo) throws InvalidAccountException;
 
     /***
-     * Add an account to the accounts collection.
+     * Add an account to the accounts collection. The in-memory implementations replace an account with the same
+     * number, while the persistent ones refuse it.
      *
      * @param account - the account to be added.
+     * @throws DuplicateAccountException - if a persistent storage already has the account number
      */
     public void addAccount(Account account);
 
@@ -75,9 +78,9 @@ public interface AccountDAO {
      *
      * @param accountNo   - account number of the respective account
      * @param expenseType - the type of the transaction
-     * @param amount      - amount involved
+     * @param amount      - amount involved, in cents
      * @throws InvalidAccountException - if the account number is invalid
      */
-    public void updateBalance(String accountNo, ExpenseType expenseType, double amount) throws InvalidAccountException;
+    public void updateBalance(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException;
 
 }
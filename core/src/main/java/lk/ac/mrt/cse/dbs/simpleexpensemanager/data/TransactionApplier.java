@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data;
+
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * TransactionApplier can be implemented by an AccountDAO which is able to log a transaction and update the balance
+ * of the respective account as a single atomic operation, instead of a call to
+ * {@link TransactionDAO#logTransaction} followed by a call to {@link AccountDAO#updateBalance}.
+ */
+public interface TransactionApplier {
+
+    /***
+     * Check whether the transactions applied through this object are logged to the given TransactionDAO.
+     *
+     * @param transactionDAO - the TransactionDAO used together with this object
+     * @return - true if both share the same storage
+     */
+    public boolean canApplyTo(TransactionDAO transactionDAO);
+
+    /***
+     * Log the transaction and update the balance of the given account atomically. Either both changes are
+     * committed or neither is.
+     *
+     * @param date        - date of the transaction
+     * @param accountNo   - account number involved
+     * @param expenseType - type of the expense
+     * @param amount      - amount involved, in cents
+     * @return - the balance of the account after the transaction, in cents
+     * @throws InvalidAccountException - if the account number is invalid
+     */
+    public long applyTransaction(Date date, String accountNo, ExpenseType expenseType, long amount)
+            throws InvalidAccountException;
+
+    /***
+     * Apply a batch of transactions, in order, as a single atomic operation. Transactions of unknown accounts are
+     * skipped.
+     *
+     * @param transactions - the transactions to be applied
+     */
+    public void applyTransactions(List<Transaction> transactions);
+}
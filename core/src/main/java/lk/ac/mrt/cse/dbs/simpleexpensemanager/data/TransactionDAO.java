@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data;
+
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlySummary;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * TransactionDAO interface can be used to access the log of transactions requested by the user.
+ */
+public interface TransactionDAO {
+
+    /***
+     * Log the transaction requested by the user.
+     *
+     * @param date        - date of the transaction
+     * @param accountNo   - account number involved
+     * @param expenseType - type of the expense
+     * @param amount      - amount involved, in cents
+     */
+    public void logTransaction(Date date, String accountNo, ExpenseType expenseType, long amount);
+
+    /***
+     * Log a batch of transactions in one go. Each transaction is subject to the same rules as
+     * {@link #logTransaction(Date, String, ExpenseType, long)}, but the implementation is free to commit the whole
+     * batch at once.
+     *
+     * @param transactions - the transactions to be logged, in order
+     */
+    public void logTransactions(List<Transaction> transactions);
+
+    /***
+     * Return all the transactions logged.
+     *
+     * @return - a list of all the transactions
+     */
+    public List<Transaction> getAllTransactionLogs();
+
+    /***
+     * Open a read-only view of all the transactions logged, in the order they were logged. The implementation may
+     * read the transactions only as they are asked for.
+     *
+     * @return - a view to be closed once it is no longer needed
+     */
+    public TransactionLogView getTransactionLogsView();
+
+    /***
+     * Stream all the transactions logged, in the order they were logged, to the given visitor.
+     *
+     * @param visitor - receives each transaction, and may stop the pass by returning false
+     */
+    public void visitTransactionLogs(TransactionVisitor visitor);
+
+    /***
+     * Stream the transactions with an id in the given range, in the order they were logged, to the given visitor.
+     * Disjoint ranges may be visited from different threads at the same time.
+     *
+     * @param fromId  - first transaction id, inclusive
+     * @param toId    - last transaction id, exclusive
+     * @param visitor - receives each transaction, and may stop the pass by returning false
+     */
+    public void visitTransactionLogs(long fromId, long toId, TransactionVisitor visitor);
+
+    /***
+     * Return a limited amount of transactions logged.
+     *
+     * @param limit - number of transactions to be returned
+     * @return - a list of requested number of transactions
+     */
+    public List<Transaction> getPaginatedTransactionLogs(int limit);
+
+    /***
+     * Return a limited amount of transactions logged before the given transaction, in the order they were logged.
+     * Pass {@link Long#MAX_VALUE} to get the most recent transactions, and the id of the first transaction of a page
+     * to get the page before it.
+     *
+     * @param transactionId - id of the transaction to seek from, exclusive
+     * @param limit         - number of transactions to be returned
+     * @return - a list of at most limit transactions with an id less than transactionId
+     */
+    public List<Transaction> getTransactionLogsBefore(long transactionId, int limit);
+
+    /***
+     * Return all the transactions of the given account, ordered by date.
+     *
+     * @param accountNo - account number involved
+     * @return - a list of the transactions of the account
+     */
+    public List<Transaction> getTransactionsForAccount(String accountNo);
+
+    /***
+     * Return all the transactions dated within the given period, ordered by date.
+     *
+     * @param from - first day of the period, inclusive
+     * @param to   - last day of the period, inclusive
+     * @return - a list of the transactions within the period
+     */
+    public List<Transaction> getTransactionsBetween(Date from, Date to);
+
+    /***
+     * Return the transactions of the given account dated within the given period, ordered by date.
+     *
+     * @param accountNo - account number involved
+     * @param from      - first day of the period, inclusive
+     * @param to        - last day of the period, inclusive
+     * @return - a list of the transactions of the account within the period
+     */
+    public List<Transaction> getTransactionsForAccountBetween(String accountNo, Date from, Date to);
+
+    /***
+     * Return the total and the number of transactions of each type per month for the given account.
+     *
+     * @param accountNo - account number involved
+     * @return - a list of summaries ordered by month and then by type
+     */
+    public List<MonthlySummary> getMonthlySummary(String accountNo);
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data;
+
+import java.io.Closeable;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * A read-only list of the transaction logs, in the order they were logged. An implementation may read the
+ * transactions from its storage only as they are asked for, so a view must be closed once it is no longer needed.
+ * The size of a view is fixed when it is opened, and transactions logged afterwards are not included.
+ */
+public interface TransactionLogView extends List<Transaction>, Closeable {
+
+    /***
+     * Release the resources held by the view. The view must not be used afterwards.
+     */
+    @Override
+    public void close();
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * TransactionVisitor receives the logged transactions one at a time while they are streamed from a TransactionDAO,
+ * so a full pass over the log does not need to hold every transaction in memory.
+ */
+public interface TransactionVisitor {
+
+    /***
+     * Visit a single transaction. The implementation of the TransactionDAO may reuse the same Transaction object for
+     * every call, therefore it should be copied if it is needed after this method returns.
+     *
+     * @param transaction - the current transaction
+     * @return - true to continue with the next transaction, false to stop
+     */
+    public boolean visit(Transaction transaction);
+}
@@ -14,11 +14,14 @@
  *
  */
 
-package lk.ac.mrt.cse.dbs.simpleexpensemanager;
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception;
 
 /**
- *
+ * This exception is thrown by a DAO when its storage fails, for example on an error of the underlying database.
  */
-public class Constants {
-    public static final String EXPENSE_MANAGER = "expense-manager";
+public class StorageException extends RuntimeException {
+    public StorageException(String detailMessage, Throwable throwable) {
+        super(detailMessage, throwable);
+    }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionApplier;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * This is a caching decorator for any implementation of the AccountDAO interface. The most recently used accounts
+ * are kept in a bounded LRU map, and the list of account numbers is kept once it has been loaded. Every change is
+ * written through to the wrapped AccountDAO before the cache is updated.
+ * <p/>
+ * The wrapped AccountDAO decides whether a balance update is applied, therefore updateBalance drops the cached
+ * account instead of guessing the new balance. Transactions applied through the TransactionApplier interface return
+ * the new balance, which is written to the cache directly unless another change happened meanwhile, in which case the
+ * account is dropped.
+ */
+public class CachingAccountDAO implements AccountDAO, TransactionApplier {
+    private final AccountDAO accountDAO;
+    private final Map<String, Account> accounts;
+    private List<String> accountNumbers;
+    // incremented on every change, so that a value loaded before a change is not cached after it
+    private long generation;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public CachingAccountDAO(AccountDAO accountDAO, final int capacity) {
+        this.accountDAO = accountDAO;
+        this.accounts = new LinkedHashMap<String, Account>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Account> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public List<String> getAccountNumbersList() {
+        long loadedGeneration;
+        synchronized (this) {
+            if (accountNumbers != null) {
+                hitCount.incrementAndGet();
+                return new ArrayList<>(accountNumbers);
+            }
+            loadedGeneration = generation;
+        }
+        missCount.incrementAndGet();
+        List<String> loaded = accountDAO.getAccountNumbersList();
+        synchronized (this) {
+            if (loadedGeneration == generation) {
+                accountNumbers = new ArrayList<>(loaded);
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public List<Account> getAccountsList() {
+        return accountDAO.getAccountsList();
+    }
+
+    @Override
+    public Account getAccount(String accountNo) throws InvalidAccountException {
+        long loadedGeneration;
+        synchronized (this) {
+            Account account = accounts.get(accountNo);
+            if (account != null) {
+                hitCount.incrementAndGet();
+                return account;
+            }
+            loadedGeneration = generation;
+        }
+        missCount.incrementAndGet();
+        Account account = accountDAO.getAccount(accountNo);
+        synchronized (this) {
+            if (loadedGeneration == generation) {
+                accounts.put(accountNo, account);
+            }
+        }
+        return account;
+    }
+
+    @Override
+    public void addAccount(Account account) {
+        accountDAO.addAccount(account);
+        synchronized (this) {
+            generation++;
+            accounts.put(account.getAccountNo(), account);
+            if (accountNumbers != null && !accountNumbers.contains(account.getAccountNo())) {
+                accountNumbers.add(account.getAccountNo());
+            }
+        }
+    }
+
+    @Override
+    public void removeAccount(String accountNo) throws InvalidAccountException {
+        try {
+            accountDAO.removeAccount(accountNo);
+        } finally {
+            synchronized (this) {
+                generation++;
+                accounts.remove(accountNo);
+                if (accountNumbers != null) {
+                    accountNumbers.remove(accountNo);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void updateBalance(String accountNo, ExpenseType expenseType, long amount)
+            throws InvalidAccountException {
+        try {
+            accountDAO.updateBalance(accountNo, expenseType, amount);
+        } finally {
+            invalidate(accountNo);
+        }
+    }
+
+    @Override
+    public boolean canApplyTo(TransactionDAO transactionDAO) {
+        return accountDAO instanceof TransactionApplier
+                && ((TransactionApplier) accountDAO).canApplyTo(transactionDAO);
+    }
+
+    @Override
+    public long applyTransaction(Date date, String accountNo, ExpenseType expenseType, long amount)
+            throws InvalidAccountException {
+        long appliedGeneration;
+        synchronized (this) {
+            appliedGeneration = generation;
+        }
+        long balance;
+        try {
+            balance = ((TransactionApplier) accountDAO).applyTransaction(date, accountNo, expenseType, amount);
+        } catch (InvalidAccountException e) {
+            invalidate(accountNo);
+            throw e;
+        }
+        synchronized (this) {
+            if (appliedGeneration != generation) {
+                // another change committed meanwhile, possibly after this one, so the balance may be stale
+                generation++;
+                accounts.remove(accountNo);
+                return balance;
+            }
+            generation++;
+            Account account = accounts.get(accountNo);
+            if (account != null) {
+                accounts.put(accountNo, new Account(accountNo, account.getBankName(),
+                        account.getAccountHolderName(), balance));
+            }
+        }
+        return balance;
+    }
+
+    @Override
+    public void applyTransactions(List<Transaction> transactions) {
+        try {
+            ((TransactionApplier) accountDAO).applyTransactions(transactions);
+        } finally {
+            // the new balances are not returned, so the accounts involved are read again when next needed
+            synchronized (this) {
+                generation++;
+                for (Transaction transaction : transactions) {
+                    accounts.remove(transaction.getAccountNo());
+                }
+            }
+        }
+    }
+
+    /***
+     * Get the number of lookups answered from the cache.
+     *
+     * @return
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /***
+     * Get the number of lookups which had to go to the wrapped AccountDAO.
+     *
+     * @return
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public AccountDAO getAccountDAO() {
+        return accountDAO;
+    }
+
+    private synchronized void invalidate(String accountNo) {
+        generation++;
+        accounts.remove(accountNo);
+    }
+}
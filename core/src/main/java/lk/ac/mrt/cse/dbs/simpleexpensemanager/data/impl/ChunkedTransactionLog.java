@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * An append-only log of transactions stored in fixed size array chunks. Appending never copies the existing entries,
+ * and any position is found with a shift and a mask, so both appending and reading a page from the tail take
+ * constant time regardless of the length of the log.
+ * <p/>
+ * Appends are lock-free but must come from a single writer at a time. Any number of readers may run concurrently with
+ * the writer: a reader first reads the published size, and every entry below that size is fully visible to it, so
+ * readers always see a consistent prefix of the log.
+ */
+public class ChunkedTransactionLog {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // the directory is replaced when it grows; slots above the published size are only touched by the writer
+    private volatile Transaction[][] chunks = new Transaction[4][];
+    // written last by the writer, so reading it first gives the readers a consistent prefix
+    private volatile int size;
+
+    /***
+     * Append a transaction to the end of the log. Only one thread may append at a time.
+     *
+     * @param transaction
+     */
+    public void append(Transaction transaction) {
+        int index = size;
+        int chunkIndex = index >>> CHUNK_SHIFT;
+        Transaction[][] directory = chunks;
+        if (chunkIndex == directory.length) {
+            Transaction[][] grown = new Transaction[directory.length * 2][];
+            System.arraycopy(directory, 0, grown, 0, directory.length);
+            directory = grown;
+            chunks = grown;
+        }
+        if (directory[chunkIndex] == null) {
+            directory[chunkIndex] = new Transaction[CHUNK_SIZE];
+        }
+        directory[chunkIndex][index & CHUNK_MASK] = transaction;
+        // publish the new entry
+        size = index + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /***
+     * Get the transaction at the given position, which must be below a size previously read by this thread.
+     *
+     * @param index
+     * @return
+     */
+    public Transaction get(int index) {
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /***
+     * Copy the transactions between the given positions into a new list.
+     *
+     * @param from - first position, inclusive
+     * @param to   - last position, exclusive, not more than the current size
+     * @return
+     */
+    public List<Transaction> copyRange(int from, int to) {
+        Transaction[][] directory = chunks;
+        List<Transaction> range = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            range.add(directory[i >>> CHUNK_SHIFT][i & CHUNK_MASK]);
+        }
+        return range;
+    }
+
+    /***
+     * Get a read-only view of the log as it is now. Transactions appended later are not part of the view.
+     *
+     * @return
+     */
+    public List<Transaction> snapshot() {
+        final int snapshotSize = size;
+        final Transaction[][] directory = chunks;
+        return new Snapshot(directory, snapshotSize);
+    }
+
+    private static final class Snapshot extends AbstractList<Transaction> implements RandomAccess {
+        private final Transaction[][] directory;
+        private final int size;
+
+        Snapshot(Transaction[][] directory, int size) {
+            this.directory = directory;
+            this.size = size;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return directory[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
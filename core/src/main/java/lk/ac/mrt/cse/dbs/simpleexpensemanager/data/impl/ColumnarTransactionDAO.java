@@ -0,0 +1,301 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlySummary;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * This is an In-Memory implementation of TransactionDAO interface meant for analytics. This is not a persistent
+ * storage. Instead of one Transaction object per row, each field is stored in its own growable primitive array: the
+ * date as an epoch day, the amount in cents, the account as an id from a dictionary of account numbers and the type as
+ * a byte. The id of each transaction is its position plus one.
+ * <p/>
+ * Scans and sums run over dense arrays of primitives, and Transaction objects are only created when one of the list
+ * methods of TransactionDAO is called.
+ * <p/>
+ * The rows below the current size are never written again, and a full column is copied rather than grown in place.
+ * The visit methods therefore take the lock only to read the columns and the size, and then scan without it, so
+ * that range visits run in parallel and do not hold up logTransaction.
+ */
+public class ColumnarTransactionDAO implements TransactionDAO {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final ExpenseType[] EXPENSE_TYPES = ExpenseType.values();
+
+    private int[] dates = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private int[] accountIds = new int[INITIAL_CAPACITY];
+    private byte[] expenseTypes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    // dictionary of account numbers, the id of an account is its position in the array
+    private final Map<String, Integer> accountIdsByNo = new HashMap<>();
+    private String[] accountNos = new String[16];
+
+    @Override
+    public synchronized void logTransaction(Date date, String accountNo, ExpenseType expenseType, long amount) {
+        if (size == dates.length) {
+            int capacity = size * 2;
+            dates = Arrays.copyOf(dates, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            accountIds = Arrays.copyOf(accountIds, capacity);
+            expenseTypes = Arrays.copyOf(expenseTypes, capacity);
+        }
+        dates[size] = DateCodec.toEpochDay(date);
+        amounts[size] = amount;
+        accountIds[size] = getAccountId(accountNo);
+        expenseTypes[size] = (byte) expenseType.ordinal();
+        size++;
+    }
+
+    @Override
+    public synchronized void logTransactions(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            logTransaction(transaction.getDate(), transaction.getAccountNo(), transaction.getExpenseType(),
+                    transaction.getAmount());
+        }
+    }
+
+    @Override
+    public synchronized List<Transaction> getAllTransactionLogs() {
+        return materialize(0, size);
+    }
+
+    @Override
+    public TransactionLogView getTransactionLogsView() {
+        return new ListTransactionLogView(getAllTransactionLogs());
+    }
+
+    @Override
+    public void visitTransactionLogs(TransactionVisitor visitor) {
+        visitTransactionLogs(1, Long.MAX_VALUE, visitor);
+    }
+
+    @Override
+    public void visitTransactionLogs(long fromId, long toId, TransactionVisitor visitor) {
+        Columns columns;
+        int start;
+        int end;
+        synchronized (this) {
+            columns = columns();
+            start = indexOf(fromId);
+            end = indexOf(toId);
+        }
+        // the rows are read without the lock, from the columns as they were when the visit started
+        Transaction transaction = new Transaction(null, null, null, 0);
+        for (int i = start; i < end; i++) {
+            if (!visitor.visit(columns.read(i, transaction))) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public List<Transaction> getPaginatedTransactionLogs(int limit) {
+        return getTransactionLogsBefore(Long.MAX_VALUE, limit);
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionLogsBefore(long transactionId, int limit) {
+        int end = indexOf(transactionId);
+        return materialize(Math.max(0, end - Math.max(0, limit)), end);
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionsForAccount(String accountNo) {
+        return getTransactions(accountNo, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionsBetween(Date from, Date to) {
+        return getTransactions(null, DateCodec.toEpochDay(from), DateCodec.toEpochDay(to));
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionsForAccountBetween(String accountNo, Date from, Date to) {
+        return getTransactions(accountNo, DateCodec.toEpochDay(from), DateCodec.toEpochDay(to));
+    }
+
+    /***
+     * Sum the amounts of the matching transactions with a single pass over the columns.
+     *
+     * @param accountNo   - account number involved, or null for every account
+     * @param expenseType - type of the expense, or null for both types
+     * @param from        - first day of the period, inclusive, or null for no lower bound
+     * @param to          - last day of the period, inclusive, or null for no upper bound
+     * @return - the total in cents
+     */
+    public synchronized long sumAmounts(String accountNo, ExpenseType expenseType, Date from, Date to) {
+        int accountId = -1;
+        if (accountNo != null) {
+            Integer id = accountIdsByNo.get(accountNo);
+            if (id == null) {
+                return 0;
+            }
+            accountId = id;
+        }
+        int type = expenseType == null ? -1 : expenseType.ordinal();
+        int fromDay = from == null ? Integer.MIN_VALUE : DateCodec.toEpochDay(from);
+        int toDay = to == null ? Integer.MAX_VALUE : DateCodec.toEpochDay(to);
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            if ((accountId < 0 || accountIds[i] == accountId) && (type < 0 || expenseTypes[i] == type)
+                    && dates[i] >= fromDay && dates[i] <= toDay) {
+                total += amounts[i];
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized List<MonthlySummary> getMonthlySummary(String accountNo) {
+        Integer id = accountIdsByNo.get(accountNo);
+        if (id == null) {
+            return new ArrayList<>();
+        }
+        int accountId = id;
+        // one scan, grouping by a key ordered by month and then by type
+        TreeMap<Integer, MonthlySummary> summaries = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            if (accountIds[i] == accountId) {
+                int yearMonth = DateCodec.toYearMonth(dates[i]);
+                int key = yearMonth * EXPENSE_TYPES.length + expenseTypes[i];
+                MonthlySummary summary = summaries.get(key);
+                if (summary == null) {
+                    summary = new MonthlySummary(accountNo, yearMonth / 100, yearMonth % 100,
+                            EXPENSE_TYPES[expenseTypes[i]], 0, 0);
+                    summaries.put(key, summary);
+                }
+                summary.setTotal(summary.getTotal() + amounts[i]);
+                summary.setCount(summary.getCount() + 1);
+            }
+        }
+        return new ArrayList<>(summaries.values());
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private List<Transaction> getTransactions(String accountNo, int fromDay, int toDay) {
+        int accountId = -1;
+        if (accountNo != null) {
+            Integer id = accountIdsByNo.get(accountNo);
+            if (id == null) {
+                return new ArrayList<>();
+            }
+            accountId = id;
+        }
+        // sort keys holding the date in the high half and the position in the low half, so that the
+        // matches are ordered by date and then by the time of insertion
+        long[] keys = new long[16];
+        int matches = 0;
+        for (int i = 0; i < size; i++) {
+            if ((accountId < 0 || accountIds[i] == accountId) && dates[i] >= fromDay && dates[i] <= toDay) {
+                if (matches == keys.length) {
+                    keys = Arrays.copyOf(keys, matches * 2);
+                }
+                keys[matches++] = ((long) dates[i] << 32) | i;
+            }
+        }
+        Arrays.sort(keys, 0, matches);
+        Columns columns = columns();
+        List<Transaction> result = new ArrayList<>(matches);
+        for (int k = 0; k < matches; k++) {
+            result.add(columns.read((int) keys[k], new Transaction(null, null, null, 0)));
+        }
+        return result;
+    }
+
+    private List<Transaction> materialize(int from, int to) {
+        Columns columns = columns();
+        List<Transaction> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(columns.read(i, new Transaction(null, null, null, 0)));
+        }
+        return result;
+    }
+
+    // transaction ids start from 1, therefore the transactions before the given id end at index id - 1
+    private int indexOf(long transactionId) {
+        return transactionId <= 1 ? 0 : (int) Math.min(transactionId - 1, size);
+    }
+
+    // called with the lock held
+    private Columns columns() {
+        return new Columns(dates, amounts, accountIds, expenseTypes, accountNos);
+    }
+
+    private int getAccountId(String accountNo) {
+        Integer accountId = accountIdsByNo.get(accountNo);
+        if (accountId == null) {
+            accountId = accountIdsByNo.size();
+            if (accountId == accountNos.length) {
+                accountNos = Arrays.copyOf(accountNos, accountId * 2);
+            }
+            accountNos[accountId] = accountNo;
+            accountIdsByNo.put(accountNo, accountId);
+        }
+        return accountId;
+    }
+
+    /**
+     * The columns as they were at one point in time. The rows written before that point can be read from it without
+     * the lock, as they are never written again.
+     */
+    private static class Columns {
+        private final int[] dates;
+        private final long[] amounts;
+        private final int[] accountIds;
+        private final byte[] expenseTypes;
+        private final String[] accountNos;
+
+        Columns(int[] dates, long[] amounts, int[] accountIds, byte[] expenseTypes, String[] accountNos) {
+            this.dates = dates;
+            this.amounts = amounts;
+            this.accountIds = accountIds;
+            this.expenseTypes = expenseTypes;
+            this.accountNos = accountNos;
+        }
+
+        Transaction read(int index, Transaction transaction) {
+            transaction.setTransactionId(index + 1);
+            Date date = transaction.getDate();
+            if (date == null) {
+                transaction.setDate(DateCodec.toDate(dates[index]));
+            } else {
+                date.setTime(DateCodec.toMillis(dates[index]));
+            }
+            transaction.setAccountNo(accountNos[accountIds[index]]);
+            transaction.setExpenseType(EXPENSE_TYPES[expenseTypes[index]]);
+            transaction.setAmount(amounts[index]);
+            return transaction;
+        }
+    }
+}
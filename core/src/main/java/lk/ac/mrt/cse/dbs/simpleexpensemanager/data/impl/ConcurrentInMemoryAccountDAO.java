@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+
+/**
+ * This is a thread safe In-Memory implementation of the AccountDAO interface. This is not a persistent storage. The
+ * accounts are stored in a ConcurrentHashMap, and each balance is held by an AtomicLong which is only changed
+ * by compare-and-set. Threads posting to different accounts never wait for each other, and concurrent postings to the
+ * same account are never lost.
+ * <p/>
+ * Unlike InMemoryAccountDAO, the accounts returned are snapshots, and changing them does not change the stored
+ * account.
+ */
+public class ConcurrentInMemoryAccountDAO implements AccountDAO {
+    private final ConcurrentMap<String, AccountEntry> accounts;
+
+    public ConcurrentInMemoryAccountDAO() {
+        this.accounts = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public List<String> getAccountNumbersList() {
+        return new ArrayList<>(accounts.keySet());
+    }
+
+    @Override
+    public List<Account> getAccountsList() {
+        List<Account> accountsList = new ArrayList<>();
+        for (AccountEntry entry : accounts.values()) {
+            accountsList.add(entry.toAccount());
+        }
+        return accountsList;
+    }
+
+    @Override
+    public Account getAccount(String accountNo) throws InvalidAccountException {
+        return getEntry(accountNo).toAccount();
+    }
+
+    @Override
+    public void addAccount(Account account) {
+        accounts.put(account.getAccountNo(), new AccountEntry(account));
+    }
+
+    @Override
+    public void removeAccount(String accountNo) throws InvalidAccountException {
+        if (accounts.remove(accountNo) == null) {
+            String msg = "Account " + accountNo + " is invalid.";
+            throw new InvalidAccountException(msg);
+        }
+    }
+
+    @Override
+    public void updateBalance(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException {
+        AtomicLong balance = getEntry(accountNo).balance;
+        // specific implementation based on the transaction type
+        long change = expenseType == ExpenseType.EXPENSE ? -amount : amount;
+        long current;
+        do {
+            current = balance.get();
+        } while (!balance.compareAndSet(current, current + change));
+    }
+
+    private AccountEntry getEntry(String accountNo) throws InvalidAccountException {
+        AccountEntry entry = accounts.get(accountNo);
+        if (entry == null) {
+            String msg = "Account " + accountNo + " is invalid.";
+            throw new InvalidAccountException(msg);
+        }
+        return entry;
+    }
+
+    /**
+     * The stored form of an account: the details never change, only the balance does.
+     */
+    private static final class AccountEntry {
+        private final String accountNo;
+        private final String bankName;
+        private final String accountHolderName;
+        private final AtomicLong balance;
+
+        AccountEntry(Account account) {
+            this.accountNo = account.getAccountNo();
+            this.bankName = account.getBankName();
+            this.accountHolderName = account.getAccountHolderName();
+            this.balance = new AtomicLong(account.getBalance());
+        }
+
+        Account toAccount() {
+            return new Account(accountNo, bankName, accountHolderName, balance.get());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+// referenced documentation https://developer.android.com/training/data-storage/sqlite#java
+// the table and column names are shared by the Android and the JDBC implementations, so this class stays plain Java
+public final class DBFields {
+    // make constructor private
+    private DBFields(){}
+    // Inner class that defines the table fields (one class per table)
+    // Account table
+    public static class AccountTable {
+        public static final String TABLE_ACCOUNT = "account";
+        public static final String COLUMN_ACCOUNT_ID = "accountId";
+        public static final String COLUMN_ACCOUNT_NO = "accountNo";
+        public static final String COLUMN_BANK_NAME = "bankName";
+        public static final String COLUMN_ACCOUNT_HOLDER_NAME = "accountHolderName";
+        public static final String COLUMN_BALANCE = "balance";
+    }
+    //Transaction table
+    public static class TransactionTable {
+        public static final String TABLE_TRANSACTION = "transactionLog";
+        public static final String COLUMN_TRANSACTION_ID = "transactionId";
+        public static final String COLUMN_DATE = "date";
+        public static final String COLUMN_EXPENSE_TYPE = "expenseType";
+        public static final String COLUMN_AMOUNT = "amount";
+        public static final String COLUMN_ACCOUNT_ID = "accountId";
+        // replaced by the account id in version 6, only used while migrating
+        public static final String COLUMN_ACCOUNT_NO = "accountNo";
+        public static final String INDEX_ACCOUNT_ID_DATE = "transactionLogAccountIdDate";
+        public static final String INDEX_DATE = "transactionLogDate";
+
+    }
+    // Monthly summary table, kept up to date with every insert into the transaction table
+    public static class MonthlySummaryTable {
+        public static final String TABLE_MONTHLY_SUMMARY = "monthlySummary";
+        public static final String COLUMN_ACCOUNT_ID = "accountId";
+        // the month as the number yyyyMM
+        public static final String COLUMN_MONTH = "month";
+        public static final String COLUMN_EXPENSE_TYPE = "expenseType";
+        public static final String COLUMN_TOTAL = "total";
+        public static final String COLUMN_COUNT = "count";
+    }
+}
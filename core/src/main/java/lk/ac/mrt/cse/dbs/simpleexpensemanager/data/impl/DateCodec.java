@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Converts transaction dates to and from epoch days, the number of days since 01-01-1970 in the local time zone.
+ * Epoch days are stored as integers, so they sort by date and need no parsing when read back. The codec holds no
+ * mutable state and can be shared by any number of threads, unlike a SimpleDateFormat.
+ */
+public final class DateCodec {
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final TimeZone TIME_ZONE = TimeZone.getDefault();
+
+    private DateCodec() {
+    }
+
+    /***
+     * Get the epoch day of the local calendar date the given date falls on.
+     *
+     * @param date
+     * @return
+     */
+    public static int toEpochDay(Date date) {
+        long millis = date.getTime();
+        return (int) floorDiv(millis + TIME_ZONE.getOffset(millis), MILLIS_PER_DAY);
+    }
+
+    /***
+     * Get the epoch day of the given calendar date.
+     *
+     * @param year
+     * @param month - 1 for January
+     * @param day
+     * @return
+     */
+    public static int toEpochDay(int year, int month, int day) {
+        // days from civil, counting years from March so that the leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (int) (era * 146097 + dayOfEra - 719468);
+    }
+
+    /***
+     * Get the time in milliseconds of the local midnight starting the given epoch day.
+     *
+     * @param epochDay
+     * @return
+     */
+    public static long toMillis(int epochDay) {
+        long localMillis = epochDay * MILLIS_PER_DAY;
+        // the offset depends on the instant itself, therefore correct the first guess once
+        long millis = localMillis - TIME_ZONE.getOffset(localMillis);
+        return localMillis - TIME_ZONE.getOffset(millis);
+    }
+
+    /***
+     * Get a new Date at the local midnight starting the given epoch day.
+     *
+     * @param epochDay
+     * @return
+     */
+    public static Date toDate(int epochDay) {
+        return new Date(toMillis(epochDay));
+    }
+
+    /***
+     * Get the month the given epoch day falls in, as the number yyyyMM.
+     *
+     * @param epochDay
+     * @return - for example 202103 for March 2021
+     */
+    public static int toYearMonth(int epochDay) {
+        // civil from days, the inverse of toEpochDay(int, int, int)
+        long z = epochDay + 719468L;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthFromMarch = (5 * dayOfYear + 2) / 153;
+        long month = monthFromMarch < 10 ? monthFromMarch + 3 : monthFromMarch - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 100 + month);
+    }
+
+    /***
+     * Parse a date in the dd-MM-yyyy format used by the first version of the database.
+     *
+     * @param date
+     * @return
+     * @throws IllegalArgumentException - if the date is not in the expected format
+     */
+    public static int parseLegacyDate(String date) {
+        if (date == null || date.length() != 10 || date.charAt(2) != '-' || date.charAt(5) != '-') {
+            throw new IllegalArgumentException("Unexpected date " + date);
+        }
+        int day = parseDigits(date, 0, 2);
+        int month = parseDigits(date, 3, 5);
+        int year = parseDigits(date, 6, 10);
+        return toEpochDay(year, month, day);
+    }
+
+    private static int parseDigits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), 10);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Unexpected date " + text);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long quotient = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            quotient--;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlySummary;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * This is an In-Memory implementation of TransactionDAO interface. This is not a persistent storage. All the
+ * transaction logs are stored in an append-only ChunkedTransactionLog in memory, and the id of each transaction is its
+ * position in the log plus one, so a page can be located without scanning. Logging is serialized, while reads of the
+ * log run without locking and see a consistent prefix of it. Ordered indexes by date and by account give the date
+ * range and per-account queries the same complexity as the indexed queries of the persistent implementation.
+ */
+public class InMemoryTransactionDAO implements TransactionDAO {
+    private final ChunkedTransactionLog transactions;
+    // transactions grouped by epoch day, in the same order as the (date) index of the persistent implementation
+    private final TreeMap<Integer, List<Transaction>> dateIndex;
+    // transactions grouped by account and then by epoch day, as the (accountNo, date) index
+    private final Map<String, TreeMap<Integer, List<Transaction>>> accountDateIndex;
+    // monthly totals per account, keyed by month and type, maintained as the transactions are logged
+    private final Map<String, TreeMap<Integer, MonthlySummary>> monthlySummaries;
+
+    public InMemoryTransactionDAO() {
+        transactions = new ChunkedTransactionLog();
+        dateIndex = new TreeMap<>();
+        accountDateIndex = new HashMap<>();
+        monthlySummaries = new HashMap<>();
+    }
+
+    @Override
+    public synchronized void logTransaction(Date date, String accountNo, ExpenseType expenseType, long amount) {
+        Transaction transaction = new Transaction(transactions.size() + 1, date, accountNo, expenseType, amount);
+        transactions.append(transaction);
+        int epochDay = DateCodec.toEpochDay(date);
+        addToIndex(dateIndex, epochDay, transaction);
+        TreeMap<Integer, List<Transaction>> accountIndex = accountDateIndex.get(accountNo);
+        if (accountIndex == null) {
+            accountIndex = new TreeMap<>();
+            accountDateIndex.put(accountNo, accountIndex);
+        }
+        addToIndex(accountIndex, epochDay, transaction);
+        addToMonthlySummary(accountNo, DateCodec.toYearMonth(epochDay), expenseType, amount);
+    }
+
+    @Override
+    public synchronized void logTransactions(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            logTransaction(transaction.getDate(), transaction.getAccountNo(), transaction.getExpenseType(),
+                    transaction.getAmount());
+        }
+    }
+
+    @Override
+    public List<Transaction> getAllTransactionLogs() {
+        return transactions.snapshot();
+    }
+
+    @Override
+    public TransactionLogView getTransactionLogsView() {
+        return new ListTransactionLogView(transactions.snapshot());
+    }
+
+    @Override
+    public void visitTransactionLogs(TransactionVisitor visitor) {
+        for (Transaction transaction : transactions.snapshot()) {
+            if (!visitor.visit(transaction)) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void visitTransactionLogs(long fromId, long toId, TransactionVisitor visitor) {
+        // the positions of the range are clamped to the part of the log published so far
+        int end = (int) Math.max(0, Math.min(toId - 1, transactions.size()));
+        for (int i = (int) Math.max(0, Math.min(fromId - 1, end)); i < end; i++) {
+            if (!visitor.visit(transactions.get(i))) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public List<Transaction> getPaginatedTransactionLogs(int limit) {
+        return getTransactionLogsBefore(Long.MAX_VALUE, limit);
+    }
+
+    @Override
+    public List<Transaction> getTransactionLogsBefore(long transactionId, int limit) {
+        // transaction ids start from 1, therefore the transactions before the given id end at index id - 1
+        int end = (int) Math.max(0, Math.min(transactionId - 1, transactions.size()));
+        int start = Math.max(0, end - limit);
+        return transactions.copyRange(start, end);
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionsForAccount(String accountNo) {
+        TreeMap<Integer, List<Transaction>> accountIndex = accountDateIndex.get(accountNo);
+        if (accountIndex == null) {
+            return new ArrayList<>();
+        }
+        return flatten(accountIndex);
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionsBetween(Date from, Date to) {
+        return flatten(dateIndex.subMap(DateCodec.toEpochDay(from), true, DateCodec.toEpochDay(to), true));
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionsForAccountBetween(String accountNo, Date from, Date to) {
+        TreeMap<Integer, List<Transaction>> accountIndex = accountDateIndex.get(accountNo);
+        if (accountIndex == null) {
+            return new ArrayList<>();
+        }
+        return flatten(accountIndex.subMap(DateCodec.toEpochDay(from), true, DateCodec.toEpochDay(to), true));
+    }
+
+    @Override
+    public synchronized List<MonthlySummary> getMonthlySummary(String accountNo) {
+        List<MonthlySummary> summaryList = new ArrayList<>();
+        TreeMap<Integer, MonthlySummary> accountSummaries = monthlySummaries.get(accountNo);
+        if (accountSummaries != null) {
+            // copies, as the stored summaries keep changing
+            for (MonthlySummary summary : accountSummaries.values()) {
+                summaryList.add(new MonthlySummary(accountNo, summary.getYear(), summary.getMonth(),
+                        summary.getExpenseType(), summary.getTotal(), summary.getCount()));
+            }
+        }
+        return summaryList;
+    }
+
+    private void addToMonthlySummary(String accountNo, int yearMonth, ExpenseType expenseType, long amount) {
+        TreeMap<Integer, MonthlySummary> accountSummaries = monthlySummaries.get(accountNo);
+        if (accountSummaries == null) {
+            accountSummaries = new TreeMap<>();
+            monthlySummaries.put(accountNo, accountSummaries);
+        }
+        int key = yearMonth * ExpenseType.values().length + expenseType.ordinal();
+        MonthlySummary summary = accountSummaries.get(key);
+        if (summary == null) {
+            summary = new MonthlySummary(accountNo, yearMonth / 100, yearMonth % 100, expenseType, 0, 0);
+            accountSummaries.put(key, summary);
+        }
+        summary.setTotal(summary.getTotal() + amount);
+        summary.setCount(summary.getCount() + 1);
+    }
+
+    private static void addToIndex(TreeMap<Integer, List<Transaction>> index, int epochDay,
+                                   Transaction transaction) {
+        List<Transaction> day = index.get(epochDay);
+        if (day == null) {
+            day = new ArrayList<>();
+            index.put(epochDay, day);
+        }
+        day.add(transaction);
+    }
+
+    private static List<Transaction> flatten(SortedMap<Integer, List<Transaction>> index) {
+        List<Transaction> result = new ArrayList<>();
+        for (List<Transaction> day : index.values()) {
+            result.addAll(day);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionApplier;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.DuplicateAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.StorageException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.AccountTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.MonthlySummaryTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.TransactionTable;
+
+/**
+ * This is a JDBC implementation of AccountDAO interface, with the same behaviour as PersistentAccountDAO.
+ */
+public class JdbcAccountDAO implements AccountDAO, TransactionApplier {
+    // result code of SQLite for a violated constraint, here the unique account number
+    private static final int SQLITE_CONSTRAINT = 19;
+    private static final String SQL_SELECT_ACCOUNT = "SELECT " +
+            AccountTable.COLUMN_ACCOUNT_NO + ", " +
+            AccountTable.COLUMN_BANK_NAME + ", " +
+            AccountTable.COLUMN_ACCOUNT_HOLDER_NAME + ", " +
+            AccountTable.COLUMN_BALANCE + " FROM " +
+            AccountTable.TABLE_ACCOUNT;
+    private static final String SQL_SELECT_BALANCE = "SELECT " +
+            AccountTable.COLUMN_BALANCE + ", " +
+            AccountTable.COLUMN_ACCOUNT_ID + " FROM " +
+            AccountTable.TABLE_ACCOUNT + " WHERE " +
+            AccountTable.COLUMN_ACCOUNT_NO + " = ?";
+    private static final String SQL_UPDATE_BALANCE = "UPDATE " +
+            AccountTable.TABLE_ACCOUNT + " SET " +
+            AccountTable.COLUMN_BALANCE + " = ? WHERE " +
+            AccountTable.COLUMN_ACCOUNT_ID + " = ?";
+
+    private final JdbcDatabase database;
+
+    public JdbcAccountDAO(JdbcDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public List<String> getAccountNumbersList() {
+        final String SQL_SELECT_ACCOUNT_NUMBERS = "SELECT " +
+                AccountTable.COLUMN_ACCOUNT_NO + " FROM " +
+                AccountTable.TABLE_ACCOUNT;
+        List<String> accountNumberList = new ArrayList<>();
+        synchronized (database) {
+            try {
+                ResultSet resultSet = database.prepare(SQL_SELECT_ACCOUNT_NUMBERS).executeQuery();
+                while (resultSet.next()) {
+                    accountNumberList.add(resultSet.getString(1));
+                }
+                resultSet.close();
+            } catch (SQLException e) {
+                throw new StorageException("Failed to read the account numbers", e);
+            }
+        }
+        return accountNumberList;
+    }
+
+    @Override
+    public List<Account> getAccountsList() {
+        List<Account> accountList = new ArrayList<>();
+        synchronized (database) {
+            try {
+                ResultSet resultSet = database.prepare(SQL_SELECT_ACCOUNT).executeQuery();
+                while (resultSet.next()) {
+                    accountList.add(readAccount(resultSet));
+                }
+                resultSet.close();
+            } catch (SQLException e) {
+                throw new StorageException("Failed to read the accounts", e);
+            }
+        }
+        return accountList;
+    }
+
+    @Override
+    public Account getAccount(String accountNo) throws InvalidAccountException {
+        Account account = null;
+        synchronized (database) {
+            try {
+                PreparedStatement select = database.prepare(SQL_SELECT_ACCOUNT + " WHERE " +
+                        AccountTable.COLUMN_ACCOUNT_NO + " = ?");
+                select.setString(1, accountNo);
+                ResultSet resultSet = select.executeQuery();
+                if (resultSet.next()) {
+                    account = readAccount(resultSet);
+                }
+                resultSet.close();
+            } catch (SQLException e) {
+                throw new StorageException("Failed to read the account", e);
+            }
+        }
+        if (account == null) {
+            String msg = "The given account " + accountNo + " is invalid.";
+            throw new InvalidAccountException(msg);
+        }
+        return account;
+    }
+
+    @Override
+    public void addAccount(Account account) {
+        final String SQL_INSERT_ACCOUNT = "INSERT INTO " +
+                AccountTable.TABLE_ACCOUNT + " (" +
+                AccountTable.COLUMN_ACCOUNT_NO + ", " +
+                AccountTable.COLUMN_BANK_NAME + ", " +
+                AccountTable.COLUMN_ACCOUNT_HOLDER_NAME + ", " +
+                AccountTable.COLUMN_BALANCE + ") VALUES (?, ?, ?, ?)";
+        synchronized (database) {
+            try {
+                PreparedStatement insert = database.prepare(SQL_INSERT_ACCOUNT);
+                insert.setString(1, account.getAccountNo());
+                insert.setString(2, account.getBankName());
+                insert.setString(3, account.getAccountHolderName());
+                insert.setLong(4, account.getBalance());
+                insert.executeUpdate();
+            } catch (SQLException e) {
+                if (e.getErrorCode() == SQLITE_CONSTRAINT) {
+                    throw new DuplicateAccountException("Account " + account.getAccountNo() + " already exists.", e);
+                }
+                throw new StorageException("Failed to add the account " + account.getAccountNo(), e);
+            }
+        }
+    }
+
+    /**
+     * Delete the account together with its transactions and monthly summary, as foreign keys are not enforced.
+     */
+    @Override
+    public void removeAccount(String accountNo) throws InvalidAccountException {
+        final String SQL_DELETE_TRANSACTIONS = "DELETE FROM " +
+                TransactionTable.TABLE_TRANSACTION + " WHERE " +
+                TransactionTable.COLUMN_ACCOUNT_ID + " = ?";
+        final String SQL_DELETE_MONTHLY_SUMMARY = "DELETE FROM " +
+                MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + " WHERE " +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + " = ?";
+        final String SQL_DELETE_ACCOUNT = "DELETE FROM " +
+                AccountTable.TABLE_ACCOUNT + " WHERE " +
+                AccountTable.COLUMN_ACCOUNT_ID + " = ?";
+        synchronized (database) {
+            try {
+                database.begin();
+                long accountId = readBalance(accountNo)[1];
+                PreparedStatement delete = database.prepare(SQL_DELETE_TRANSACTIONS);
+                delete.setLong(1, accountId);
+                delete.executeUpdate();
+                delete = database.prepare(SQL_DELETE_MONTHLY_SUMMARY);
+                delete.setLong(1, accountId);
+                delete.executeUpdate();
+                delete = database.prepare(SQL_DELETE_ACCOUNT);
+                delete.setLong(1, accountId);
+                delete.executeUpdate();
+                database.commit();
+            } catch (SQLException e) {
+                throw new StorageException("Failed to remove the account " + accountNo, e);
+            } finally {
+                database.rollback();
+            }
+        }
+    }
+
+    @Override
+    public void updateBalance(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException {
+        synchronized (database) {
+            try {
+                long[] account = readBalance(accountNo);
+                // update the balance only if there is sufficient amount available, else do nothing
+                if (amount < account[0]) {
+                    writeBalance(account[1], applyAmount(account[0], expenseType, amount));
+                }
+            } catch (SQLException e) {
+                throw new StorageException("Failed to update the balance of " + accountNo, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean canApplyTo(TransactionDAO transactionDAO) {
+        return transactionDAO instanceof JdbcTransactionDAO
+                && ((JdbcTransactionDAO) transactionDAO).getDatabase() == database;
+    }
+
+    @Override
+    public long applyTransaction(Date date, String accountNo, ExpenseType expenseType, long amount)
+            throws InvalidAccountException {
+        synchronized (database) {
+            try {
+                database.begin();
+                long balance = applyTransactionLocked(date, accountNo, expenseType, amount);
+                database.commit();
+                return balance;
+            } catch (SQLException e) {
+                throw new StorageException("Failed to apply the transaction", e);
+            } finally {
+                database.rollback();
+            }
+        }
+    }
+
+    /**
+     * Apply the batch in a single transaction, skipping the transactions of unknown accounts.
+     */
+    @Override
+    public void applyTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        synchronized (database) {
+            try {
+                database.begin();
+                for (Transaction transaction : transactions) {
+                    try {
+                        applyTransactionLocked(transaction.getDate(), transaction.getAccountNo(),
+                                transaction.getExpenseType(), transaction.getAmount());
+                    } catch (InvalidAccountException e) {
+                        // an unknown account, as in PersistentAccountDAO the rest of the batch is still applied
+                    }
+                }
+                database.commit();
+            } catch (SQLException e) {
+                throw new StorageException("Failed to apply the transactions", e);
+            } finally {
+                database.rollback();
+            }
+        }
+    }
+
+    /**
+     * Log the transaction and update the balance, if the amount is less than the balance. Must be called inside a
+     * transaction.
+     */
+    private long applyTransactionLocked(Date date, String accountNo, ExpenseType expenseType, long amount)
+            throws SQLException, InvalidAccountException {
+        long[] account = readBalance(accountNo);
+        long balance = account[0];
+        if (amount < balance) {
+            balance = applyAmount(balance, expenseType, amount);
+            JdbcTransactionDAO.insertTransaction(database, date, account[1], expenseType, amount);
+            writeBalance(account[1], balance);
+        }
+        return balance;
+    }
+
+    /**
+     * Read the balance and the id of the account. Must be called while holding the lock of the database.
+     *
+     * @return the balance and the account id
+     */
+    private long[] readBalance(String accountNo) throws SQLException, InvalidAccountException {
+        PreparedStatement select = database.prepare(SQL_SELECT_BALANCE);
+        select.setString(1, accountNo);
+        ResultSet resultSet = select.executeQuery();
+        try {
+            if (!resultSet.next()) {
+                String msg = "The given account " + accountNo + " is invalid.";
+                throw new InvalidAccountException(msg);
+            }
+            return new long[]{resultSet.getLong(1), resultSet.getLong(2)};
+        } finally {
+            resultSet.close();
+        }
+    }
+
+    private void writeBalance(long accountId, long balance) throws SQLException {
+        PreparedStatement update = database.prepare(SQL_UPDATE_BALANCE);
+        update.setLong(1, balance);
+        update.setLong(2, accountId);
+        update.executeUpdate();
+    }
+
+    private static long applyAmount(long balance, ExpenseType expenseType, long amount) {
+        switch (expenseType) {
+            case EXPENSE:
+                return balance - amount;
+            case INCOME:
+                return balance + amount;
+        }
+        return balance;
+    }
+
+    private static Account readAccount(ResultSet resultSet) throws SQLException {
+        return new Account(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3),
+                resultSet.getLong(4));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.AccountTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.MonthlySummaryTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.TransactionTable;
+
+/**
+ * This class plays the part of DBUtil for the JDBC implementation. It holds a single connection to an SQLite database,
+ * such as "jdbc:sqlite:expenses.db", and creates the same schema as the latest version of the Android database. The
+ * DAOs synchronize on this object around every use of the connection, and the prepared statements are compiled once
+ * and reused.
+ */
+public class JdbcDatabase implements AutoCloseable {
+    // the Android database version this schema matches
+    static final int SCHEMA_VERSION = 6;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    public JdbcDatabase(String url) throws SQLException {
+        connection = DriverManager.getConnection(url);
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("PRAGMA user_version");
+            int version = resultSet.next() ? resultSet.getInt(1) : 0;
+            resultSet.close();
+            if (version == 0) {
+                createSchema(statement);
+            } else if (version != SCHEMA_VERSION) {
+                // the migrations of older versions are only done by the Android implementation
+                throw new SQLException("Unsupported schema version " + version);
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Get the prepared statement of the given SQL, compiling it on first use. Must be called while holding the lock
+     * of this object, and the statement must not be used after the lock is released.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Start a transaction, to be ended with commit or rollback while still holding the lock of this object.
+     */
+    void begin() throws SQLException {
+        connection.setAutoCommit(false);
+    }
+
+    void commit() throws SQLException {
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * Roll back the current transaction, if any. Used in finally blocks, so a failure is not thrown again.
+     */
+    void rollback() {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // the connection is unusable, the error which led here is more telling
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        for (PreparedStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+        connection.close();
+    }
+
+    private static void createSchema(Statement statement) throws SQLException {
+        statement.executeUpdate("CREATE TABLE " + AccountTable.TABLE_ACCOUNT + "(" +
+                AccountTable.COLUMN_ACCOUNT_ID + " INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL," +
+                AccountTable.COLUMN_ACCOUNT_NO + " VARCHAR(50) UNIQUE NOT NULL," +
+                AccountTable.COLUMN_BANK_NAME + " VARCHAR(255)," +
+                AccountTable.COLUMN_ACCOUNT_HOLDER_NAME + " VARCHAR(255)," +
+                AccountTable.COLUMN_BALANCE + " INTEGER)");
+        statement.executeUpdate("CREATE TABLE " + TransactionTable.TABLE_TRANSACTION + "(" +
+                TransactionTable.COLUMN_TRANSACTION_ID + " INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL," +
+                TransactionTable.COLUMN_DATE + " INTEGER," +
+                TransactionTable.COLUMN_EXPENSE_TYPE + " VARCHAR(255)," +
+                TransactionTable.COLUMN_AMOUNT + " INTEGER," +
+                TransactionTable.COLUMN_ACCOUNT_ID + " INTEGER," +
+                "FOREIGN KEY(" + TransactionTable.COLUMN_ACCOUNT_ID + ") REFERENCES " +
+                AccountTable.TABLE_ACCOUNT + "(" + AccountTable.COLUMN_ACCOUNT_ID + ") ON DELETE CASCADE)");
+        statement.executeUpdate("CREATE INDEX " + TransactionTable.INDEX_ACCOUNT_ID_DATE + " ON " +
+                TransactionTable.TABLE_TRANSACTION + "(" +
+                TransactionTable.COLUMN_ACCOUNT_ID + ", " +
+                TransactionTable.COLUMN_DATE + ")");
+        statement.executeUpdate("CREATE INDEX " + TransactionTable.INDEX_DATE + " ON " +
+                TransactionTable.TABLE_TRANSACTION + "(" +
+                TransactionTable.COLUMN_DATE + ")");
+        statement.executeUpdate("CREATE TABLE " + MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + "(" +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + " INTEGER NOT NULL," +
+                MonthlySummaryTable.COLUMN_MONTH + " INTEGER NOT NULL," +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE + " VARCHAR(255) NOT NULL," +
+                MonthlySummaryTable.COLUMN_TOTAL + " INTEGER NOT NULL," +
+                MonthlySummaryTable.COLUMN_COUNT + " INTEGER NOT NULL," +
+                "PRIMARY KEY(" + MonthlySummaryTable.COLUMN_ACCOUNT_ID + ", " +
+                MonthlySummaryTable.COLUMN_MONTH + ", " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE + "))");
+        statement.executeUpdate("PRAGMA user_version = " + SCHEMA_VERSION);
+    }
+}
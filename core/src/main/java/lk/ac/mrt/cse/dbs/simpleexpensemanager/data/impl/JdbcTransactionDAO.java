@@ -0,0 +1,430 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.StorageException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlySummary;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.AccountTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.MonthlySummaryTable;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DBFields.TransactionTable;
+
+/**
+ * This is a JDBC implementation of TransactionDAO interface, over the same SQLite schema and with the same behaviour
+ * as PersistentTransactionDAO, so that the storage can be run and profiled on an ordinary JVM.
+ */
+public class JdbcTransactionDAO implements TransactionDAO {
+    private static final String SQL_SELECT_TRANSACTIONS = "SELECT " +
+            TransactionTable.COLUMN_TRANSACTION_ID + ", " +
+            TransactionTable.COLUMN_DATE + ", " +
+            TransactionTable.COLUMN_EXPENSE_TYPE + ", " +
+            TransactionTable.COLUMN_AMOUNT + ", " +
+            TransactionTable.COLUMN_ACCOUNT_ID + " FROM " +
+            TransactionTable.TABLE_TRANSACTION;
+    private static final String ACCOUNT_ID_OF_ACCOUNT_NO = "(SELECT " +
+            AccountTable.COLUMN_ACCOUNT_ID + " FROM " +
+            AccountTable.TABLE_ACCOUNT + " WHERE " +
+            AccountTable.COLUMN_ACCOUNT_NO + " = ?)";
+
+    private final JdbcDatabase database;
+    // account numbers indexed by account id, as in PersistentTransactionDAO. Only used while holding the lock of the
+    // database.
+    private String[] accountNumbers = new String[16];
+
+    public JdbcTransactionDAO(JdbcDatabase database) {
+        this.database = database;
+    }
+
+    JdbcDatabase getDatabase() {
+        return database;
+    }
+
+    @Override
+    public void logTransaction(Date date, String accountNo, ExpenseType expenseType, long amount) {
+        final String SQL_SELECT_ACCOUNT = "SELECT " +
+                AccountTable.COLUMN_BALANCE + ", " +
+                AccountTable.COLUMN_ACCOUNT_ID + " FROM " +
+                AccountTable.TABLE_ACCOUNT + " WHERE " +
+                AccountTable.COLUMN_ACCOUNT_NO + " = ?";
+        synchronized (database) {
+            try {
+                database.begin();
+                PreparedStatement select = database.prepare(SQL_SELECT_ACCOUNT);
+                select.setString(1, accountNo);
+                ResultSet resultSet = select.executeQuery();
+                // log the transaction if there is sufficient amount available, else do nothing
+                if (resultSet.next() && amount < resultSet.getLong(1)) {
+                    long accountId = resultSet.getLong(2);
+                    resultSet.close();
+                    insertTransaction(database, date, accountId, expenseType, amount);
+                } else {
+                    resultSet.close();
+                }
+                database.commit();
+            } catch (SQLException e) {
+                throw new StorageException("Failed to log the transaction", e);
+            } finally {
+                database.rollback();
+            }
+        }
+    }
+
+    /**
+     * Insert a single row into the transaction log and add it to the monthly summary, without any checks on the
+     * account. Must be called inside a transaction.
+     */
+    static void insertTransaction(JdbcDatabase database, Date date, long accountId, ExpenseType expenseType,
+                                  long amount) throws SQLException {
+        final String SQL_INSERT_TRANSACTION = "INSERT INTO " +
+                TransactionTable.TABLE_TRANSACTION + " (" +
+                TransactionTable.COLUMN_DATE + ", " +
+                TransactionTable.COLUMN_EXPENSE_TYPE + ", " +
+                TransactionTable.COLUMN_AMOUNT + ", " +
+                TransactionTable.COLUMN_ACCOUNT_ID + ") VALUES (?, ?, ?, ?)";
+        int epochDay = DateCodec.toEpochDay(date);
+        PreparedStatement insert = database.prepare(SQL_INSERT_TRANSACTION);
+        insert.setInt(1, epochDay);
+        insert.setString(2, expenseType.toString());
+        insert.setLong(3, amount);
+        insert.setLong(4, accountId);
+        insert.executeUpdate();
+        addToMonthlySummary(database, accountId, DateCodec.toYearMonth(epochDay), expenseType, amount, 1);
+    }
+
+    /**
+     * Add a total and a count to the monthly summary row of the given account, month and type, creating the row if
+     * it does not exist yet.
+     */
+    static void addToMonthlySummary(JdbcDatabase database, long accountId, int yearMonth, ExpenseType expenseType,
+                                    long total, int count) throws SQLException {
+        final String SQL_UPDATE_MONTHLY_SUMMARY = "UPDATE " +
+                MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + " SET " +
+                MonthlySummaryTable.COLUMN_TOTAL + " = " + MonthlySummaryTable.COLUMN_TOTAL + " + ?, " +
+                MonthlySummaryTable.COLUMN_COUNT + " = " + MonthlySummaryTable.COLUMN_COUNT + " + ? WHERE " +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + " = ? AND " +
+                MonthlySummaryTable.COLUMN_MONTH + " = ? AND " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE + " = ?";
+        final String SQL_INSERT_MONTHLY_SUMMARY = "INSERT INTO " +
+                MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + " (" +
+                MonthlySummaryTable.COLUMN_TOTAL + ", " +
+                MonthlySummaryTable.COLUMN_COUNT + ", " +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + ", " +
+                MonthlySummaryTable.COLUMN_MONTH + ", " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE + ") VALUES (?, ?, ?, ?, ?)";
+        PreparedStatement update = database.prepare(SQL_UPDATE_MONTHLY_SUMMARY);
+        bindMonthlySummary(update, accountId, yearMonth, expenseType, total, count);
+        if (update.executeUpdate() == 0) {
+            // first transaction of this account, month and type
+            PreparedStatement insert = database.prepare(SQL_INSERT_MONTHLY_SUMMARY);
+            bindMonthlySummary(insert, accountId, yearMonth, expenseType, total, count);
+            insert.executeUpdate();
+        }
+    }
+
+    private static void bindMonthlySummary(PreparedStatement statement, long accountId, int yearMonth,
+                                           ExpenseType expenseType, long total, int count) throws SQLException {
+        statement.setLong(1, total);
+        statement.setInt(2, count);
+        statement.setLong(3, accountId);
+        statement.setInt(4, yearMonth);
+        statement.setString(5, expenseType.toString());
+    }
+
+    /**
+     * Log a batch of transactions in a single transaction, reading the balance of each account once and updating
+     * the monthly summary once per account, month and type.
+     */
+    @Override
+    public void logTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        final String SQL_SELECT_ACCOUNT = "SELECT " +
+                AccountTable.COLUMN_BALANCE + ", " +
+                AccountTable.COLUMN_ACCOUNT_ID + " FROM " +
+                AccountTable.TABLE_ACCOUNT + " WHERE " +
+                AccountTable.COLUMN_ACCOUNT_NO + " = ?";
+        final String SQL_INSERT_TRANSACTION = "INSERT INTO " +
+                TransactionTable.TABLE_TRANSACTION + " (" +
+                TransactionTable.COLUMN_DATE + ", " +
+                TransactionTable.COLUMN_EXPENSE_TYPE + ", " +
+                TransactionTable.COLUMN_AMOUNT + ", " +
+                TransactionTable.COLUMN_ACCOUNT_ID + ") VALUES (?, ?, ?, ?)";
+        synchronized (database) {
+            try {
+                database.begin();
+                // balance and id of each account, null for unknown accounts
+                Map<String, long[]> accounts = new HashMap<>();
+                PreparedStatement select = database.prepare(SQL_SELECT_ACCOUNT);
+                for (Transaction transaction : transactions) {
+                    String accountNo = transaction.getAccountNo();
+                    if (!accounts.containsKey(accountNo)) {
+                        select.setString(1, accountNo);
+                        ResultSet resultSet = select.executeQuery();
+                        accounts.put(accountNo, resultSet.next()
+                                ? new long[]{resultSet.getLong(1), resultSet.getLong(2)} : null);
+                        resultSet.close();
+                    }
+                }
+                // the batch is summarized in memory, keyed by month, type and account
+                Map<String, MonthlySummary> summaries = new HashMap<>();
+                PreparedStatement insert = database.prepare(SQL_INSERT_TRANSACTION);
+                for (Transaction transaction : transactions) {
+                    long[] account = accounts.get(transaction.getAccountNo());
+                    // log the transaction only if the account exists and there is sufficient amount available
+                    if (account != null && transaction.getAmount() < account[0]) {
+                        int epochDay = DateCodec.toEpochDay(transaction.getDate());
+                        insert.setInt(1, epochDay);
+                        insert.setString(2, transaction.getExpenseType().toString());
+                        insert.setLong(3, transaction.getAmount());
+                        insert.setLong(4, account[1]);
+                        insert.addBatch();
+
+                        int yearMonth = DateCodec.toYearMonth(epochDay);
+                        String key = yearMonth + ":" + transaction.getExpenseType() + ":" + transaction.getAccountNo();
+                        MonthlySummary summary = summaries.get(key);
+                        if (summary == null) {
+                            summary = new MonthlySummary(transaction.getAccountNo(), yearMonth / 100,
+                                    yearMonth % 100, transaction.getExpenseType(), 0, 0);
+                            summaries.put(key, summary);
+                        }
+                        summary.setTotal(summary.getTotal() + transaction.getAmount());
+                        summary.setCount(summary.getCount() + 1);
+                    }
+                }
+                insert.executeBatch();
+                for (MonthlySummary summary : summaries.values()) {
+                    addToMonthlySummary(database, accounts.get(summary.getAccountNo())[1],
+                            summary.getYear() * 100 + summary.getMonth(), summary.getExpenseType(),
+                            summary.getTotal(), summary.getCount());
+                }
+                database.commit();
+            } catch (SQLException e) {
+                throw new StorageException("Failed to log the transactions", e);
+            } finally {
+                database.rollback();
+            }
+        }
+    }
+
+    @Override
+    public List<Transaction> getAllTransactionLogs() {
+        return getTransactions(SQL_SELECT_TRANSACTIONS + " ORDER BY " + TransactionTable.COLUMN_TRANSACTION_ID);
+    }
+
+    /**
+     * The rows are read up front, as a JDBC result set can not be held open while other statements use the
+     * connection.
+     */
+    @Override
+    public TransactionLogView getTransactionLogsView() {
+        return new ListTransactionLogView(getAllTransactionLogs());
+    }
+
+    @Override
+    public void visitTransactionLogs(TransactionVisitor visitor) {
+        visitTransactionLogs(Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Stream the transactions of the id range to the visitor, reusing one Transaction object. The lock of the
+     * database is held for the whole pass, so ranges visited from several threads are read one after the other.
+     */
+    @Override
+    public void visitTransactionLogs(long fromId, long toId, TransactionVisitor visitor) {
+        final String SQL_SELECT_TRANSACTIONS_RANGE = SQL_SELECT_TRANSACTIONS + " WHERE " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " >= ? AND " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " < ? ORDER BY " +
+                TransactionTable.COLUMN_TRANSACTION_ID;
+        synchronized (database) {
+            try {
+                PreparedStatement select = database.prepare(SQL_SELECT_TRANSACTIONS_RANGE);
+                select.setLong(1, fromId);
+                select.setLong(2, toId);
+                ResultSet resultSet = select.executeQuery();
+                try {
+                    Transaction transaction = new Transaction(null, null, null, 0);
+                    while (resultSet.next()) {
+                        if (!visitor.visit(readTransaction(resultSet, transaction))) {
+                            break;
+                        }
+                    }
+                } finally {
+                    resultSet.close();
+                }
+            } catch (SQLException e) {
+                throw new StorageException("Failed to read the transactions", e);
+            }
+        }
+    }
+
+    @Override
+    public List<Transaction> getPaginatedTransactionLogs(int limit) {
+        return getTransactionLogsBefore(Long.MAX_VALUE, limit);
+    }
+
+    @Override
+    public List<Transaction> getTransactionLogsBefore(long transactionId, int limit) {
+        List<Transaction> transactionList = getTransactions(SQL_SELECT_TRANSACTIONS + " WHERE " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " < ? ORDER BY " +
+                TransactionTable.COLUMN_TRANSACTION_ID + " DESC LIMIT ?", transactionId, limit);
+        // the page is read newest first, and returned in the order of insertion
+        Collections.reverse(transactionList);
+        return transactionList;
+    }
+
+    @Override
+    public List<Transaction> getTransactionsForAccount(String accountNo) {
+        return getTransactions(SQL_SELECT_TRANSACTIONS + " WHERE " +
+                TransactionTable.COLUMN_ACCOUNT_ID + " = " + ACCOUNT_ID_OF_ACCOUNT_NO + " ORDER BY " +
+                TransactionTable.COLUMN_DATE + ", " +
+                TransactionTable.COLUMN_TRANSACTION_ID, accountNo);
+    }
+
+    @Override
+    public List<Transaction> getTransactionsBetween(Date from, Date to) {
+        return getTransactions(SQL_SELECT_TRANSACTIONS + " WHERE " +
+                TransactionTable.COLUMN_DATE + " BETWEEN ? AND ? ORDER BY " +
+                TransactionTable.COLUMN_DATE + ", " +
+                TransactionTable.COLUMN_TRANSACTION_ID, DateCodec.toEpochDay(from), DateCodec.toEpochDay(to));
+    }
+
+    @Override
+    public List<Transaction> getTransactionsForAccountBetween(String accountNo, Date from, Date to) {
+        return getTransactions(SQL_SELECT_TRANSACTIONS + " WHERE " +
+                TransactionTable.COLUMN_ACCOUNT_ID + " = " + ACCOUNT_ID_OF_ACCOUNT_NO + " AND " +
+                TransactionTable.COLUMN_DATE + " BETWEEN ? AND ? ORDER BY " +
+                TransactionTable.COLUMN_DATE + ", " +
+                TransactionTable.COLUMN_TRANSACTION_ID, accountNo,
+                DateCodec.toEpochDay(from), DateCodec.toEpochDay(to));
+    }
+
+    @Override
+    public List<MonthlySummary> getMonthlySummary(String accountNo) {
+        final String SQL_SELECT_MONTHLY_SUMMARY = "SELECT " +
+                MonthlySummaryTable.COLUMN_MONTH + ", " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE + ", " +
+                MonthlySummaryTable.COLUMN_TOTAL + ", " +
+                MonthlySummaryTable.COLUMN_COUNT + " FROM " +
+                MonthlySummaryTable.TABLE_MONTHLY_SUMMARY + " WHERE " +
+                MonthlySummaryTable.COLUMN_ACCOUNT_ID + " = " + ACCOUNT_ID_OF_ACCOUNT_NO + " ORDER BY " +
+                MonthlySummaryTable.COLUMN_MONTH + ", " +
+                MonthlySummaryTable.COLUMN_EXPENSE_TYPE;
+        List<MonthlySummary> summaryList = new ArrayList<>();
+        synchronized (database) {
+            try {
+                PreparedStatement select = database.prepare(SQL_SELECT_MONTHLY_SUMMARY);
+                select.setString(1, accountNo);
+                ResultSet resultSet = select.executeQuery();
+                while (resultSet.next()) {
+                    int yearMonth = resultSet.getInt(1);
+                    summaryList.add(new MonthlySummary(accountNo, yearMonth / 100, yearMonth % 100,
+                            ExpenseType.valueOf(resultSet.getString(2)), resultSet.getLong(3),
+                            resultSet.getInt(4)));
+                }
+                resultSet.close();
+            } catch (SQLException e) {
+                throw new StorageException("Failed to read the monthly summary", e);
+            }
+        }
+        return summaryList;
+    }
+
+    private List<Transaction> getTransactions(String sql, Object... args) {
+        List<Transaction> transactionList = new ArrayList<>();
+        synchronized (database) {
+            try {
+                PreparedStatement select = database.prepare(sql);
+                for (int i = 0; i < args.length; i++) {
+                    select.setObject(i + 1, args[i]);
+                }
+                ResultSet resultSet = select.executeQuery();
+                while (resultSet.next()) {
+                    transactionList.add(readTransaction(resultSet, new Transaction(null, null, null, 0)));
+                }
+                resultSet.close();
+            } catch (SQLException e) {
+                throw new StorageException("Failed to read the transactions", e);
+            }
+        }
+        return transactionList;
+    }
+
+    /**
+     * Fill the given transaction from the current row, updating its Date in place if it has one.
+     */
+    private Transaction readTransaction(ResultSet resultSet, Transaction transaction) throws SQLException {
+        int epochDay = resultSet.getInt(2);
+        Date date = transaction.getDate();
+        if (resultSet.wasNull()) {
+            date = null;
+        } else if (date == null) {
+            date = DateCodec.toDate(epochDay);
+        } else {
+            date.setTime(DateCodec.toMillis(epochDay));
+        }
+        transaction.setTransactionId(resultSet.getLong(1));
+        transaction.setDate(date);
+        transaction.setExpenseType(ExpenseType.EXPENSE.toString().equals(resultSet.getString(3))
+                ? ExpenseType.EXPENSE : ExpenseType.INCOME);
+        transaction.setAmount(resultSet.getLong(4));
+        transaction.setAccountNo(getAccountNo(resultSet.getInt(5)));
+        return transaction;
+    }
+
+    /**
+     * Get the account number of the given account id from the dictionary, loading it the first time the id is met.
+     * Called while holding the lock of the database.
+     */
+    private String getAccountNo(int accountId) throws SQLException {
+        if (accountId >= accountNumbers.length) {
+            accountNumbers = Arrays.copyOf(accountNumbers, Math.max(accountNumbers.length * 2, accountId + 1));
+        }
+        String accountNo = accountNumbers[accountId];
+        if (accountNo == null) {
+            final String SQL_SELECT_ACCOUNT_NO = "SELECT " +
+                    AccountTable.COLUMN_ACCOUNT_NO + " FROM " +
+                    AccountTable.TABLE_ACCOUNT + " WHERE " +
+                    AccountTable.COLUMN_ACCOUNT_ID + " = ?";
+            PreparedStatement select = database.prepare(SQL_SELECT_ACCOUNT_NO);
+            select.setInt(1, accountId);
+            ResultSet resultSet = select.executeQuery();
+            if (resultSet.next()) {
+                accountNo = resultSet.getString(1).intern();
+                accountNumbers[accountId] = accountNo;
+            }
+            resultSet.close();
+        }
+        return accountNo;
+    }
+}
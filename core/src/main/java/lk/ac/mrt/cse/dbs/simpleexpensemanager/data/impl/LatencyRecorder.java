@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MethodMetrics;
+
+/**
+ * This class records the calls of one method without locking. The latencies are counted in a log-linear histogram:
+ * every power of two is split into 8 buckets, so a bucket is at most an eighth of its value wide, and a value is
+ * recorded with a couple of atomic increments.
+ */
+final class LatencyRecorder {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values below SUB_BUCKETS have a bucket each, the 61 higher powers of two have SUB_BUCKETS each
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String methodName;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    LatencyRecorder(String methodName) {
+        this.methodName = methodName;
+    }
+
+    /**
+     * Record a call which took the given time, and which threw an exception if failed is true.
+     */
+    void record(long nanos, boolean failed) {
+        if (nanos < 0) {
+            // nanoTime is monotonic, but be safe against a misbehaving clock
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketOf(nanos));
+        if (failed) {
+            errorCount.incrementAndGet();
+        }
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Take a snapshot of the metrics. The calls recorded while the snapshot is taken may be partly included.
+     */
+    MethodMetrics snapshot() {
+        long[] counts = new long[BUCKETS];
+        long callCount = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            callCount += counts[i];
+        }
+        long max = maxNanos.get();
+        return new MethodMetrics(methodName, callCount, errorCount.get(), percentile(counts, callCount, 0.50, max),
+                percentile(counts, callCount, 0.95, max), percentile(counts, callCount, 0.99, max), max);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * Get the highest value which falls into the given bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long callCount, double fraction, long max) {
+        if (callCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * callCount);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+}
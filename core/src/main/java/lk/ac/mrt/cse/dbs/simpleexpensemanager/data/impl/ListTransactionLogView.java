@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * A TransactionLogView over a list which is already in memory, for the DAOs which do not read lazily. Closing it
+ * does nothing.
+ */
+public class ListTransactionLogView extends AbstractList<Transaction> implements TransactionLogView, RandomAccess {
+    private final List<Transaction> transactions;
+
+    public ListTransactionLogView(List<Transaction> transactions) {
+        this.transactions = transactions;
+    }
+
+    @Override
+    public Transaction get(int index) {
+        return transactions.get(index);
+    }
+
+    @Override
+    public int size() {
+        return transactions.size();
+    }
+
+    @Override
+    public void close() {
+    }
+}
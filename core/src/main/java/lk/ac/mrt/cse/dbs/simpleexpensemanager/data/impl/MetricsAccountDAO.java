@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.AccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionApplier;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MethodMetrics;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * This is a decorator for any implementation of the AccountDAO interface which records the number of calls, the
+ * number of failed calls and the latency of each method. A call which throws is counted as an error, and its time is
+ * recorded as well.
+ */
+public class MetricsAccountDAO implements AccountDAO, TransactionApplier {
+    private final AccountDAO accountDAO;
+    private final LatencyRecorder getAccountNumbersList = new LatencyRecorder("AccountDAO.getAccountNumbersList");
+    private final LatencyRecorder getAccountsList = new LatencyRecorder("AccountDAO.getAccountsList");
+    private final LatencyRecorder getAccount = new LatencyRecorder("AccountDAO.getAccount");
+    private final LatencyRecorder addAccount = new LatencyRecorder("AccountDAO.addAccount");
+    private final LatencyRecorder removeAccount = new LatencyRecorder("AccountDAO.removeAccount");
+    private final LatencyRecorder updateBalance = new LatencyRecorder("AccountDAO.updateBalance");
+    private final LatencyRecorder applyTransaction = new LatencyRecorder("TransactionApplier.applyTransaction");
+    private final LatencyRecorder applyTransactions = new LatencyRecorder("TransactionApplier.applyTransactions");
+
+    public MetricsAccountDAO(AccountDAO accountDAO) {
+        this.accountDAO = accountDAO;
+    }
+
+    @Override
+    public List<String> getAccountNumbersList() {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<String> accountNumbers = accountDAO.getAccountNumbersList();
+            failed = false;
+            return accountNumbers;
+        } finally {
+            getAccountNumbersList.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public List<Account> getAccountsList() {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Account> accounts = accountDAO.getAccountsList();
+            failed = false;
+            return accounts;
+        } finally {
+            getAccountsList.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public Account getAccount(String accountNo) throws InvalidAccountException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Account account = accountDAO.getAccount(accountNo);
+            failed = false;
+            return account;
+        } finally {
+            getAccount.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void addAccount(Account account) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            accountDAO.addAccount(account);
+            failed = false;
+        } finally {
+            addAccount.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void removeAccount(String accountNo) throws InvalidAccountException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            accountDAO.removeAccount(accountNo);
+            failed = false;
+        } finally {
+            removeAccount.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void updateBalance(String accountNo, ExpenseType expenseType, long amount) throws InvalidAccountException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            accountDAO.updateBalance(accountNo, expenseType, amount);
+            failed = false;
+        } finally {
+            updateBalance.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * The given TransactionDAO is unwrapped first if it is measured too, so that the check is made against the
+     * TransactionDAO the wrapped AccountDAO knows about.
+     */
+    @Override
+    public boolean canApplyTo(TransactionDAO transactionDAO) {
+        if (transactionDAO instanceof MetricsTransactionDAO) {
+            transactionDAO = ((MetricsTransactionDAO) transactionDAO).getTransactionDAO();
+        }
+        return accountDAO instanceof TransactionApplier
+                && ((TransactionApplier) accountDAO).canApplyTo(transactionDAO);
+    }
+
+    @Override
+    public long applyTransaction(Date date, String accountNo, ExpenseType expenseType, long amount)
+            throws InvalidAccountException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            long balance = ((TransactionApplier) accountDAO).applyTransaction(date, accountNo, expenseType, amount);
+            failed = false;
+            return balance;
+        } finally {
+            applyTransaction.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void applyTransactions(List<Transaction> transactions) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ((TransactionApplier) accountDAO).applyTransactions(transactions);
+            failed = false;
+        } finally {
+            applyTransactions.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /***
+     * Get a snapshot of the metrics of every method.
+     *
+     * @return
+     */
+    public List<MethodMetrics> getMetrics() {
+        List<MethodMetrics> metrics = new ArrayList<>();
+        for (LatencyRecorder recorder : Arrays.asList(getAccountNumbersList, getAccountsList, getAccount, addAccount,
+                removeAccount, updateBalance, applyTransaction, applyTransactions)) {
+            metrics.add(recorder.snapshot());
+        }
+        return metrics;
+    }
+}
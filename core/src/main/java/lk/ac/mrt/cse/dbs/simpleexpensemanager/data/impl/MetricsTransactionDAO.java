@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MethodMetrics;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlySummary;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * This is a decorator for any implementation of the TransactionDAO interface which records the number of calls, the
+ * number of failed calls and the latency of each method. The time of a visit includes the time spent in the
+ * visitor.
+ */
+public class MetricsTransactionDAO implements TransactionDAO {
+    private final TransactionDAO transactionDAO;
+    private final LatencyRecorder logTransaction = new LatencyRecorder("TransactionDAO.logTransaction");
+    private final LatencyRecorder logTransactions = new LatencyRecorder("TransactionDAO.logTransactions");
+    private final LatencyRecorder getAllTransactionLogs = new LatencyRecorder("TransactionDAO.getAllTransactionLogs");
+    private final LatencyRecorder getTransactionLogsView =
+            new LatencyRecorder("TransactionDAO.getTransactionLogsView");
+    private final LatencyRecorder visitTransactionLogs = new LatencyRecorder("TransactionDAO.visitTransactionLogs");
+    private final LatencyRecorder getPaginatedTransactionLogs =
+            new LatencyRecorder("TransactionDAO.getPaginatedTransactionLogs");
+    private final LatencyRecorder getTransactionLogsBefore =
+            new LatencyRecorder("TransactionDAO.getTransactionLogsBefore");
+    private final LatencyRecorder getTransactionsForAccount =
+            new LatencyRecorder("TransactionDAO.getTransactionsForAccount");
+    private final LatencyRecorder getTransactionsBetween = new LatencyRecorder("TransactionDAO.getTransactionsBetween");
+    private final LatencyRecorder getTransactionsForAccountBetween =
+            new LatencyRecorder("TransactionDAO.getTransactionsForAccountBetween");
+    private final LatencyRecorder getMonthlySummary = new LatencyRecorder("TransactionDAO.getMonthlySummary");
+
+    public MetricsTransactionDAO(TransactionDAO transactionDAO) {
+        this.transactionDAO = transactionDAO;
+    }
+
+    TransactionDAO getTransactionDAO() {
+        return transactionDAO;
+    }
+
+    @Override
+    public void logTransaction(Date date, String accountNo, ExpenseType expenseType, long amount) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            transactionDAO.logTransaction(date, accountNo, expenseType, amount);
+            failed = false;
+        } finally {
+            logTransaction.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void logTransactions(List<Transaction> transactions) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            transactionDAO.logTransactions(transactions);
+            failed = false;
+        } finally {
+            logTransactions.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public List<Transaction> getAllTransactionLogs() {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Transaction> transactions = transactionDAO.getAllTransactionLogs();
+            failed = false;
+            return transactions;
+        } finally {
+            getAllTransactionLogs.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public TransactionLogView getTransactionLogsView() {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            TransactionLogView view = transactionDAO.getTransactionLogsView();
+            failed = false;
+            return view;
+        } finally {
+            getTransactionLogsView.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void visitTransactionLogs(TransactionVisitor visitor) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            transactionDAO.visitTransactionLogs(visitor);
+            failed = false;
+        } finally {
+            visitTransactionLogs.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void visitTransactionLogs(long fromId, long toId, TransactionVisitor visitor) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            transactionDAO.visitTransactionLogs(fromId, toId, visitor);
+            failed = false;
+        } finally {
+            visitTransactionLogs.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public List<Transaction> getPaginatedTransactionLogs(int limit) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Transaction> transactions = transactionDAO.getPaginatedTransactionLogs(limit);
+            failed = false;
+            return transactions;
+        } finally {
+            getPaginatedTransactionLogs.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionLogsBefore(long transactionId, int limit) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Transaction> transactions = transactionDAO.getTransactionLogsBefore(transactionId, limit);
+            failed = false;
+            return transactions;
+        } finally {
+            getTransactionLogsBefore.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionsForAccount(String accountNo) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Transaction> transactions = transactionDAO.getTransactionsForAccount(accountNo);
+            failed = false;
+            return transactions;
+        } finally {
+            getTransactionsForAccount.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionsBetween(Date from, Date to) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Transaction> transactions = transactionDAO.getTransactionsBetween(from, to);
+            failed = false;
+            return transactions;
+        } finally {
+            getTransactionsBetween.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionsForAccountBetween(String accountNo, Date from, Date to) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Transaction> transactions = transactionDAO.getTransactionsForAccountBetween(accountNo, from, to);
+            failed = false;
+            return transactions;
+        } finally {
+            getTransactionsForAccountBetween.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public List<MonthlySummary> getMonthlySummary(String accountNo) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<MonthlySummary> summaries = transactionDAO.getMonthlySummary(accountNo);
+            failed = false;
+            return summaries;
+        } finally {
+            getMonthlySummary.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /***
+     * Get a snapshot of the metrics of every method. Both overloads of visitTransactionLogs are recorded together.
+     *
+     * @return
+     */
+    public List<MethodMetrics> getMetrics() {
+        List<MethodMetrics> metrics = new ArrayList<>();
+        for (LatencyRecorder recorder : Arrays.asList(logTransaction, logTransactions, getAllTransactionLogs,
+                getTransactionLogsView, visitTransactionLogs, getPaginatedTransactionLogs, getTransactionLogsBefore,
+                getTransactionsForAccount, getTransactionsBetween, getTransactionsForAccountBetween,
+                getMonthlySummary)) {
+            metrics.add(recorder.snapshot());
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionLogView;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+/**
+ * A TransactionLogView which reads a transaction from its storage only when get is called for it, and keeps the
+ * transactions read in a bounded window, so a view over thousands of transactions only holds the ones recently asked
+ * for. Subclasses read the rows, for example from an open cursor.
+ * <p/>
+ * The window is direct mapped: position i is kept in slot i % windowSize, which suits a list scrolled in either
+ * direction. A row dropped from the window is read again if it is asked for later, as a new Transaction.
+ */
+public abstract class WindowedTransactionLogView extends AbstractList<Transaction>
+        implements TransactionLogView, RandomAccess {
+    private final int size;
+    private final Transaction[] window;
+    private final int[] windowPositions;
+    private boolean closed;
+
+    protected WindowedTransactionLogView(int size, int windowSize) {
+        this.size = size;
+        this.window = new Transaction[Math.max(1, windowSize)];
+        this.windowPositions = new int[window.length];
+        Arrays.fill(windowPositions, -1);
+    }
+
+    /***
+     * Read the transaction at the given position of the log. Called with the lock of the view held, so never
+     * concurrently.
+     *
+     * @param position - from 0 to size - 1, in the order of insertion
+     * @return - a new Transaction
+     */
+    protected abstract Transaction readRow(int position);
+
+    /***
+     * Release the storage resources held by the view. Called once, with the lock of the view held.
+     */
+    protected abstract void release();
+
+    @Override
+    public synchronized Transaction get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        if (closed) {
+            throw new IllegalStateException("The view is closed");
+        }
+        int slot = index % window.length;
+        if (windowPositions[slot] != index) {
+            window[slot] = readRow(index);
+            windowPositions[slot] = index;
+        }
+        return window[slot];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Arrays.fill(window, null);
+        Arrays.fill(windowPositions, -1);
+        release();
+    }
+}
@@ -17,13 +17,13 @@
 package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
 
 /**
- * This POJO holds the information about an account.
+ * This POJO holds the information about an account. The balance is held in cents.
  */
 public class Account {
     private String accountNo;
     private String bankName;
     private String accountHolderName;
-    private double balance;
+    private long balance;
 
     public String getAccountNo() {
         return accountNo;
@@ -49,15 +49,15 @@ public class Account {
         this.accountHolderName = accountHolderName;
     }
 
-    public double getBalance() {
+    public long getBalance() {
         return balance;
     }
 
-    public void setBalance(double balance) {
+    public void setBalance(long balance) {
         this.balance = balance;
     }
 
-    public Account(String accountNo, String bankName, String accountHolderName, double balance) {
+    public Account(String accountNo, String bankName, String accountHolderName, long balance) {
         this.accountNo = accountNo;
         this.bankName = bankName;
         this.accountHolderName = accountHolderName;
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
+
+/**
+ * This POJO holds a snapshot of the metrics recorded for one DAO method, such as "AccountDAO.updateBalance". The
+ * latencies are held in nanoseconds, and the percentiles are accurate to within an eighth of their value.
+ */
+public class MethodMetrics {
+    private String methodName;
+    private long callCount;
+    private long errorCount;
+    private long p50Nanos;
+    private long p95Nanos;
+    private long p99Nanos;
+    private long maxNanos;
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public void setMethodName(String methodName) {
+        this.methodName = methodName;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    public void setCallCount(long callCount) {
+        this.callCount = callCount;
+    }
+
+    /***
+     * Get the number of calls which threw an exception, included in the call count.
+     *
+     * @return
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(long errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public void setP50Nanos(long p50Nanos) {
+        this.p50Nanos = p50Nanos;
+    }
+
+    public long getP95Nanos() {
+        return p95Nanos;
+    }
+
+    public void setP95Nanos(long p95Nanos) {
+        this.p95Nanos = p95Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public void setP99Nanos(long p99Nanos) {
+        this.p99Nanos = p99Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public void setMaxNanos(long maxNanos) {
+        this.maxNanos = maxNanos;
+    }
+
+    public MethodMetrics(String methodName, long callCount, long errorCount, long p50Nanos, long p95Nanos,
+                         long p99Nanos, long maxNanos) {
+        this.methodName = methodName;
+        this.callCount = callCount;
+        this.errorCount = errorCount;
+        this.p50Nanos = p50Nanos;
+        this.p95Nanos = p95Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return methodName + ": " + callCount + " calls, " + errorCount + " errors, p50 " + p50Nanos + " ns, p95 " +
+                p95Nanos + " ns, p99 " + p99Nanos + " ns, max " + maxNanos + " ns";
+    }
+}
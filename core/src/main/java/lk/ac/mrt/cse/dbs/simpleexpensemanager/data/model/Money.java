@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
+
+/**
+ * Amounts of money are held as a long number of cents, so that balances are updated and summed exactly. This class
+ * converts between cents and the decimal text entered and shown by the user.
+ */
+public final class Money {
+    public static final long CENTS_PER_UNIT = 100;
+
+    private Money() {
+    }
+
+    /***
+     * Parse a decimal amount such as "-12.5" into cents without creating any object. Digits after the second
+     * decimal place are rounded half up.
+     *
+     * @param amount
+     * @return - the amount in cents
+     * @throws NumberFormatException - if the text is not a decimal number or is too large
+     */
+    public static long parseCents(CharSequence amount) {
+        int length = amount.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (amount.charAt(i) == '-' || amount.charAt(i) == '+')) {
+            negative = amount.charAt(i) == '-';
+            i++;
+        }
+        long units = 0;
+        int unitDigits = 0;
+        for (; i < length && amount.charAt(i) != '.'; i++, unitDigits++) {
+            units = units * 10 + digit(amount, i);
+            if (units > Long.MAX_VALUE / CENTS_PER_UNIT) {
+                throw new NumberFormatException("Amount too large: " + amount);
+            }
+        }
+        long cents = 0;
+        int fractionDigits = 0;
+        if (i < length) {
+            // skip the decimal point
+            i++;
+            for (; i < length; i++, fractionDigits++) {
+                int digit = digit(amount, i);
+                if (fractionDigits < 2) {
+                    cents = cents * 10 + digit;
+                } else if (fractionDigits == 2 && digit >= 5) {
+                    cents++;
+                }
+            }
+        }
+        if (unitDigits + fractionDigits == 0) {
+            throw new NumberFormatException("Invalid amount: " + amount);
+        }
+        if (fractionDigits == 1) {
+            cents *= 10;
+        }
+        long total = units * CENTS_PER_UNIT + cents;
+        return negative ? -total : total;
+    }
+
+    /***
+     * Format an amount in cents as a decimal with two decimal places, such as "-12.50".
+     *
+     * @param cents
+     * @return
+     */
+    public static String format(long cents) {
+        StringBuilder builder = new StringBuilder(24);
+        long abs = Math.abs(cents);
+        if (cents < 0) {
+            builder.append('-');
+        }
+        long fraction = abs % CENTS_PER_UNIT;
+        builder.append(abs / CENTS_PER_UNIT).append('.');
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        return builder.append(fraction).toString();
+    }
+
+    private static int digit(CharSequence amount, int index) {
+        char c = amount.charAt(index);
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Invalid amount: " + amount);
+        }
+        return c - '0';
+    }
+}
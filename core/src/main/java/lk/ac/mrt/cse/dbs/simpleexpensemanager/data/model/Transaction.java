@@ -19,11 +19,20 @@ package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
 import java.util.Date;
 
 /**
- * This POJO holds the information regarding a single transaction.
+ * This POJO holds the information regarding a single transaction. The amount is held in cents.
  */
 public class Transaction {
+    private long transactionId;
     private Date date;
 
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(long transactionId) {
+        this.transactionId = transactionId;
+    }
+
     public Date getDate() {
         return date;
     }
@@ -48,23 +57,29 @@ public class Transaction {
         this.expenseType = expenseType;
     }
 
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
 
     private String accountNo;
     private ExpenseType expenseType;
-    private double amount;
+    private long amount;
 
     public Transaction(Date date, String accountNo,
-                       ExpenseType expenseType, double amount) {
+                       ExpenseType expenseType, long amount) {
         this.date = date;
         this.accountNo = accountNo;
         this.expenseType = expenseType;
         this.amount = amount;
     }
+
+    public Transaction(long transactionId, Date date, String accountNo,
+                       ExpenseType expenseType, long amount) {
+        this(date, accountNo, expenseType, amount);
+        this.transactionId = transactionId;
+    }
 }
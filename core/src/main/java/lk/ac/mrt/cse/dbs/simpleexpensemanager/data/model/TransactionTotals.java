@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+
+/**
+ * This class holds the totals of a set of transactions, per expense type: overall, by account and by time bucket.
+ * The totals are held in cents. The meaning of a bucket key is decided by whoever adds the transactions, for example
+ * an epoch day or a yyyyMM month. Partial totals of disjoint sets of transactions can be merged into one.
+ */
+public class TransactionTotals {
+    private static final ExpenseType[] EXPENSE_TYPES = ExpenseType.values();
+
+    private final long[] totals = new long[EXPENSE_TYPES.length];
+    private final int[] counts = new int[EXPENSE_TYPES.length];
+    private final Map<String, long[]> accountTotals = new HashMap<>();
+    private final TreeMap<Integer, long[]> bucketTotals = new TreeMap<>();
+
+    /***
+     * Add a transaction to the totals.
+     *
+     * @param accountNo
+     * @param bucket      - key of the time bucket the transaction falls in
+     * @param expenseType
+     * @param amount      - in cents
+     */
+    public void add(String accountNo, int bucket, ExpenseType expenseType, long amount) {
+        int type = expenseType.ordinal();
+        totals[type] += amount;
+        counts[type]++;
+        long[] accountTotal = accountTotals.get(accountNo);
+        if (accountTotal == null) {
+            accountTotal = new long[EXPENSE_TYPES.length];
+            accountTotals.put(accountNo, accountTotal);
+        }
+        accountTotal[type] += amount;
+        long[] bucketTotal = bucketTotals.get(bucket);
+        if (bucketTotal == null) {
+            bucketTotal = new long[EXPENSE_TYPES.length];
+            bucketTotals.put(bucket, bucketTotal);
+        }
+        bucketTotal[type] += amount;
+    }
+
+    /***
+     * Add the totals of a disjoint set of transactions to these totals.
+     *
+     * @param other - totals computed with the same kind of bucket
+     */
+    public void merge(TransactionTotals other) {
+        for (int type = 0; type < EXPENSE_TYPES.length; type++) {
+            totals[type] += other.totals[type];
+            counts[type] += other.counts[type];
+        }
+        mergeInto(accountTotals, other.accountTotals);
+        mergeInto(bucketTotals, other.bucketTotals);
+    }
+
+    public long getTotal(ExpenseType expenseType) {
+        return totals[expenseType.ordinal()];
+    }
+
+    public int getCount(ExpenseType expenseType) {
+        return counts[expenseType.ordinal()];
+    }
+
+    public Set<String> getAccountNumbers() {
+        return accountTotals.keySet();
+    }
+
+    public long getAccountTotal(String accountNo, ExpenseType expenseType) {
+        long[] accountTotal = accountTotals.get(accountNo);
+        return accountTotal == null ? 0 : accountTotal[expenseType.ordinal()];
+    }
+
+    /***
+     * Get the keys of the buckets holding at least one transaction, in ascending order.
+     *
+     * @return
+     */
+    public SortedSet<Integer> getBuckets() {
+        return bucketTotals.navigableKeySet();
+    }
+
+    public long getBucketTotal(int bucket, ExpenseType expenseType) {
+        long[] bucketTotal = bucketTotals.get(bucket);
+        return bucketTotal == null ? 0 : bucketTotal[expenseType.ordinal()];
+    }
+
+    private static <K> void mergeInto(Map<K, long[]> target, Map<K, long[]> source) {
+        for (Map.Entry<K, long[]> entry : source.entrySet()) {
+            long[] total = target.get(entry.getKey());
+            if (total == null) {
+                target.put(entry.getKey(), entry.getValue().clone());
+            } else {
+                for (int type = 0; type < total.length; type++) {
+                    total[type] += entry.getValue()[type];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.MetricsAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MethodMetrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the account catalogue is read once and then follows the accounts added and removed.
+ */
+public class AccountCatalogueTest {
+
+    @Test
+    public void accountNumbersAreReadOnce() throws Exception {
+        InMemoryDemoExpenseManager expenseManager = new InMemoryDemoExpenseManager();
+        MetricsAccountDAO accountDAO = new MetricsAccountDAO(expenseManager.getAccountsDAO());
+        expenseManager.setAccountsDAO(accountDAO);
+
+        assertEquals(Arrays.asList("12345A", "78945Z"), expenseManager.getAccountNumbersList());
+        expenseManager.addAccount("555B", "Bank", "Holder", 100);
+        expenseManager.removeAccount("12345A");
+        assertEquals(Arrays.asList("78945Z", "555B"), expenseManager.getAccountNumbersList());
+        for (MethodMetrics metrics : accountDAO.getMetrics()) {
+            if (metrics.getMethodName().equals("AccountDAO.getAccountNumbersList")) {
+                assertEquals(1, metrics.getCallCount());
+            }
+        }
+    }
+
+    @Test
+    public void listenersReceiveSnapshotThenChanges() throws Exception {
+        InMemoryDemoExpenseManager expenseManager = new InMemoryDemoExpenseManager();
+        RecordingListener listener = new RecordingListener();
+        try {
+            expenseManager.addAccountCatalogueListener(listener, null).get();
+            expenseManager.addAccountAsync("555B", "Bank", "Holder", 100, null).get();
+            expenseManager.removeAccountAsync("78945Z", null).get();
+            // an account added twice is only reported once
+            expenseManager.getAccountCatalogue().accountAdded("555B");
+            expenseManager.removeAccountCatalogueListener(listener);
+            expenseManager.addAccountAsync("666C", "Bank", "Holder", 100, null).get();
+        } finally {
+            expenseManager.shutdown();
+        }
+        assertEquals(Arrays.asList("loaded [12345A, 78945Z]", "added 555B", "removed 78945Z"), listener.events);
+    }
+
+    @Test
+    public void listenerRemovedBeforeItsAccountsAreReadIsDropped() throws Exception {
+        InMemoryDemoExpenseManager expenseManager = new InMemoryDemoExpenseManager();
+        RecordingListener listener = new RecordingListener();
+        AccountCatalogue catalogue = expenseManager.getAccountCatalogue();
+        try {
+            // as if the view went away before the reader thread got to the listener
+            catalogue.addListener(listener);
+            expenseManager.removeAccountCatalogueListener(listener);
+            catalogue.deliverAccounts(listener);
+            expenseManager.addAccountAsync("555B", "Bank", "Holder", 100, null).get();
+        } finally {
+            expenseManager.shutdown();
+        }
+        assertEquals(Collections.<String>emptyList(), listener.events);
+    }
+
+    @Test
+    public void unknownAccountIsNotRemoved() throws Exception {
+        InMemoryDemoExpenseManager expenseManager = new InMemoryDemoExpenseManager();
+        expenseManager.getAccountNumbersList();
+        try {
+            expenseManager.removeAccount("unknown");
+            fail();
+        } catch (InvalidAccountException e) {
+            // expected
+        }
+        assertEquals(Arrays.asList("12345A", "78945Z"), expenseManager.getAccountNumbersList());
+    }
+
+    private static class RecordingListener implements AccountCatalogueListener {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public synchronized void onAccountsLoaded(List<String> accountNumbers) {
+            events.add("loaded " + accountNumbers);
+        }
+
+        @Override
+        public synchronized void onAccountAdded(String accountNo) {
+            events.add("added " + accountNo);
+        }
+
+        @Override
+        public synchronized void onAccountRemoved(String accountNo) {
+            events.add("removed " + accountNo);
+        }
+    }
+}
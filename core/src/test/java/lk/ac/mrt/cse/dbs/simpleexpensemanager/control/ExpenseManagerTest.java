@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryAccountDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that an asynchronous read sees the writes called before it, whether they succeed, fail or are cancelled.
+ */
+public class ExpenseManagerTest {
+    private InMemoryDemoExpenseManager expenseManager;
+    private BlockingAccountDAO accountDAO;
+
+    @Before
+    public void setUp() {
+        expenseManager = new InMemoryDemoExpenseManager();
+        accountDAO = new BlockingAccountDAO();
+        accountDAO.addAccount(new Account("12345A", "Bank", "Holder", 1000));
+        expenseManager.setAccountsDAO(accountDAO);
+    }
+
+    @After
+    public void tearDown() {
+        accountDAO.release.countDown();
+        expenseManager.shutdown();
+    }
+
+    @Test(timeout = 30000)
+    public void readWaitsForEarlierWrite() throws Exception {
+        accountDAO.block("555B");
+        expenseManager.addAccountAsync("555B", "Bank", "Holder", 100, null);
+        Future<List<String>> read = expenseManager.getAccountNumbersListAsync(null);
+        assertTrue(accountDAO.blocked.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertFalse(read.isDone());
+        accountDAO.release.countDown();
+        assertEquals(new HashSet<>(Arrays.asList("12345A", "555B")), new HashSet<>(read.get()));
+    }
+
+    @Test(timeout = 30000)
+    public void readRunsAfterFailedWrite() throws Exception {
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        expenseManager.removeAccountAsync("unknown", new ExpenseManagerCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                failure.set(e);
+            }
+        });
+        assertEquals(Arrays.asList("12345A"), expenseManager.getAccountNumbersListAsync(null).get());
+        assertTrue(failure.get() instanceof InvalidAccountException);
+    }
+
+    @Test(timeout = 30000)
+    public void readAfterCancelledWriteWaitsForEarlierWrites() throws Exception {
+        accountDAO.block("555B");
+        expenseManager.addAccountAsync("555B", "Bank", "Holder", 100, null);
+        assertTrue(accountDAO.blocked.await(10, TimeUnit.SECONDS));
+        assertTrue(expenseManager.addAccountAsync("666C", "Bank", "Holder", 100, null).cancel(false));
+        Future<List<String>> read = expenseManager.getAccountNumbersListAsync(null);
+        Thread.sleep(100);
+        assertFalse(read.isDone());
+        accountDAO.release.countDown();
+        assertEquals(new HashSet<>(Arrays.asList("12345A", "555B")), new HashSet<>(read.get()));
+    }
+
+    /**
+     * Holds the addition of the given account until released.
+     */
+    private static class BlockingAccountDAO extends InMemoryAccountDAO {
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile String blockedAccountNo;
+
+        void block(String accountNo) {
+            blockedAccountNo = accountNo;
+        }
+
+        @Override
+        public void addAccount(Account account) {
+            if (account.getAccountNo().equals(blockedAccountNo)) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.addAccount(account);
+        }
+    }
+}
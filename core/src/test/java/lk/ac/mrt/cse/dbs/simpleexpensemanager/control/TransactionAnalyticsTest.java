@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.control.TransactionAnalytics.TimeBucket;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.ColumnarTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.DateCodec;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl.InMemoryTransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.TransactionTotals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the parallel totals against totals summed in a single sequential pass over all the transaction logs.
+ */
+public class TransactionAnalyticsTest {
+    private static final int TRANSACTIONS = 50000;
+    private static final int ACCOUNTS = 7;
+    private static final int DAYS = 3 * 365;
+    private static final int FIRST_DAY = DateCodec.toEpochDay(2014, 1, 1);
+
+    @Test
+    public void inMemoryTotalsMatchSequentialReference() throws Exception {
+        TransactionDAO transactionDAO = fill(new InMemoryTransactionDAO());
+        for (TimeBucket timeBucket : TimeBucket.values()) {
+            assertMatchesReference(transactionDAO, timeBucket);
+        }
+    }
+
+    @Test
+    public void columnarTotalsMatchSequentialReference() throws Exception {
+        assertMatchesReference(fill(new ColumnarTransactionDAO()), TimeBucket.MONTH);
+    }
+
+    @Test
+    public void emptyLogHasNoTotals() throws Exception {
+        TransactionAnalytics analytics = new TransactionAnalytics(new InMemoryTransactionDAO(), 4);
+        try {
+            TransactionTotals totals = analytics.computeTotals(TimeBucket.DAY);
+            assertTrue(totals.getAccountNumbers().isEmpty());
+            assertTrue(totals.getBuckets().isEmpty());
+            assertEquals(0, totals.getTotal(ExpenseType.EXPENSE));
+        } finally {
+            analytics.shutdown();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void expenseManagerTotalsSeeEarlierWritesAndSurviveShutdown() throws Exception {
+        InMemoryDemoExpenseManager expenseManager = new InMemoryDemoExpenseManager();
+        try {
+            expenseManager.updateAccountBalanceAsync("12345A", 1, 0, 2015, ExpenseType.EXPENSE, "12.50", null);
+            TransactionTotals totals = expenseManager.computeTotalsAsync(TimeBucket.MONTH, null).get();
+            assertEquals(1250, totals.getTotal(ExpenseType.EXPENSE));
+            // the worker threads are started again after a shutdown
+            expenseManager.shutdown();
+            assertEquals(1250, expenseManager.computeTotals(TimeBucket.YEAR).getTotal(ExpenseType.EXPENSE));
+        } finally {
+            expenseManager.shutdown();
+        }
+    }
+
+    private static TransactionDAO fill(TransactionDAO transactionDAO) {
+        Random random = new Random(42);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            Date date = DateCodec.toDate(FIRST_DAY + random.nextInt(DAYS));
+            ExpenseType expenseType = random.nextBoolean() ? ExpenseType.EXPENSE : ExpenseType.INCOME;
+            transactionDAO.logTransaction(date, "A" + random.nextInt(ACCOUNTS), expenseType, random.nextInt(1000000));
+        }
+        return transactionDAO;
+    }
+
+    private static void assertMatchesReference(TransactionDAO transactionDAO, TimeBucket timeBucket)
+            throws Exception {
+        Map<ExpenseType, Long> totals = new HashMap<>();
+        Map<String, Long> accountTotals = new HashMap<>();
+        Map<Integer, Long> bucketTotals = new TreeMap<>();
+        for (Transaction transaction : transactionDAO.getAllTransactionLogs()) {
+            int bucket = TransactionAnalytics.toBucket(DateCodec.toEpochDay(transaction.getDate()), timeBucket);
+            add(totals, transaction.getExpenseType(), transaction.getAmount());
+            add(accountTotals, transaction.getAccountNo() + "/" + transaction.getExpenseType(),
+                    transaction.getAmount());
+            add(bucketTotals, bucket * 2 + transaction.getExpenseType().ordinal(), transaction.getAmount());
+        }
+
+        TransactionAnalytics analytics = new TransactionAnalytics(transactionDAO, 4);
+        TransactionTotals parallel;
+        try {
+            parallel = analytics.computeTotals(timeBucket);
+        } finally {
+            analytics.shutdown();
+        }
+
+        for (ExpenseType expenseType : ExpenseType.values()) {
+            assertEquals(totals.get(expenseType).longValue(), parallel.getTotal(expenseType));
+        }
+        assertEquals(ACCOUNTS, parallel.getAccountNumbers().size());
+        for (String accountNo : parallel.getAccountNumbers()) {
+            for (ExpenseType expenseType : ExpenseType.values()) {
+                Long expected = accountTotals.get(accountNo + "/" + expenseType);
+                assertEquals(expected == null ? 0 : expected, parallel.getAccountTotal(accountNo, expenseType));
+            }
+        }
+        int buckets = 0;
+        for (int bucket : parallel.getBuckets()) {
+            for (ExpenseType expenseType : ExpenseType.values()) {
+                Long expected = bucketTotals.get(bucket * 2 + expenseType.ordinal());
+                assertEquals(expected == null ? 0 : expected, parallel.getBucketTotal(bucket, expenseType));
+                if (expected != null) {
+                    buckets++;
+                }
+            }
+        }
+        assertEquals(bucketTotals.size(), buckets);
+    }
+
+    private static <K> void add(Map<K, Long> totals, K key, long amount) {
+        Long total = totals.get(key);
+        totals.put(key, total == null ? amount : total + amount);
+    }
+}
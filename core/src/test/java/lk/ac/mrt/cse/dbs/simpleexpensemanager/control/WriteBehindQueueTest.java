@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.control;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionApplier;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks when the write-behind queue applies its batches, and what it does with a batch which fails.
+ */
+public class WriteBehindQueueTest {
+    private static final long NEVER = 3600000;
+
+    private final RecordingApplier applier = new RecordingApplier();
+    private WriteBehindQueue queue;
+
+    @After
+    public void tearDown() {
+        queue.close();
+    }
+
+    @Test(timeout = 30000)
+    public void fullBatchIsAppliedAtOnce() throws Exception {
+        queue = new WriteBehindQueue(applier, 3, NEVER);
+        enqueue("A", "B");
+        Thread.sleep(100);
+        assertTrue(applier.getBatches().isEmpty());
+        enqueue("C");
+        applier.awaitPostings(3);
+        assertEquals(Arrays.asList(Arrays.asList("A", "B", "C")), applier.getBatches());
+        // the depth drops just after the batch is applied
+        queue.flush();
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test(timeout = 30000)
+    public void partialBatchIsAppliedAfterTheDelay() throws Exception {
+        queue = new WriteBehindQueue(applier, 100, 50);
+        enqueue("A", "B");
+        assertEquals(2, queue.getDepth());
+        applier.awaitPostings(2);
+        assertEquals(Arrays.asList(Arrays.asList("A", "B")), applier.getBatches());
+        // the depth drops just after the batch is applied
+        queue.flush();
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test(timeout = 30000)
+    public void flushAppliesEveryBatch() throws Exception {
+        queue = new WriteBehindQueue(applier, 3, NEVER);
+        enqueue("A", "B");
+        queue.flush();
+        enqueue("C", "D", "E", "F", "G");
+        queue.flush();
+        List<String> applied = new ArrayList<>();
+        for (List<String> batch : applier.getBatches()) {
+            assertTrue(batch.size() <= 3);
+            applied.addAll(batch);
+        }
+        assertEquals(Arrays.asList("A", "B", "C", "D", "E", "F", "G"), applied);
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test(timeout = 30000)
+    public void closeAppliesTheRestAndRefusesPostings() throws Exception {
+        queue = new WriteBehindQueue(applier, 3, NEVER);
+        enqueue("A", "B");
+        queue.close();
+        assertEquals(Arrays.asList(Arrays.asList("A", "B")), applier.getBatches());
+        try {
+            enqueue("C");
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        queue.flush();
+    }
+
+    @Test(timeout = 30000)
+    public void failedBatchIsTriedAgain() throws Exception {
+        applier.failures = 2;
+        queue = new WriteBehindQueue(applier, 2, NEVER, 5, 10);
+        enqueue("A", "B");
+        applier.awaitPostings(2);
+        assertEquals(Arrays.asList(Arrays.asList("A", "B")), applier.getBatches());
+        assertEquals(3, applier.attempts);
+        assertTrue(queue.getRejectedTransactions().isEmpty());
+        // the depth drops just after the batch is applied
+        queue.flush();
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test(timeout = 30000)
+    public void onlyThePostingFailingOnItsOwnIsSetAside() throws Exception {
+        applier.poison = "P";
+        queue = new WriteBehindQueue(applier, 3, NEVER, 3, 10);
+        enqueue("A", "P", "B", "C");
+        queue.flush();
+        // the first batch failed as a whole, so its postings were applied one by one
+        assertEquals(Arrays.asList(Arrays.asList("A"), Arrays.asList("B"), Arrays.asList("C")),
+                applier.getBatches());
+        List<String> rejected = new ArrayList<>();
+        for (Transaction transaction : queue.getRejectedTransactions()) {
+            rejected.add(transaction.getAccountNo());
+        }
+        assertEquals(Arrays.asList("P"), rejected);
+        assertEquals(1, queue.getRejectedCount());
+        assertEquals(0, queue.getDepth());
+        // the queue goes on once the posting is set aside
+        enqueue("D");
+        queue.flush();
+        assertEquals(Arrays.asList("D"), applier.getBatches().get(3));
+    }
+
+    private void enqueue(String... accountNos) {
+        for (String accountNo : accountNos) {
+            queue.enqueue(new Date(), accountNo, ExpenseType.EXPENSE, 100);
+        }
+    }
+
+    /**
+     * Records the account numbers of each batch applied, failing the given number of times first, and every time on a
+     * batch with the poisoned account.
+     */
+    private static class RecordingApplier implements TransactionApplier {
+        private final List<List<String>> batches = new ArrayList<>();
+        private int postings;
+        private volatile int failures;
+        private volatile int attempts;
+        private volatile String poison;
+
+        @Override
+        public boolean canApplyTo(TransactionDAO transactionDAO) {
+            return true;
+        }
+
+        @Override
+        public long applyTransaction(Date date, String accountNo, ExpenseType expenseType, long amount) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized void applyTransactions(List<Transaction> transactions) {
+            attempts++;
+            List<String> batch = new ArrayList<>();
+            for (Transaction transaction : transactions) {
+                if (transaction.getAccountNo().equals(poison)) {
+                    throw new IllegalStateException("Poisoned batch");
+                }
+                batch.add(transaction.getAccountNo());
+            }
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("Failed batch");
+            }
+            batches.add(batch);
+            postings += batch.size();
+            notifyAll();
+        }
+
+        synchronized List<List<String>> getBatches() {
+            return new ArrayList<>(batches);
+        }
+
+        synchronized void awaitPostings(int count) throws InterruptedException {
+            while (postings < count) {
+                wait();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionApplier;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionDAO;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the caching decorator never keeps a balance older than the one stored.
+ */
+public class CachingAccountDAOTest {
+
+    @Test
+    public void balanceReturnedOutOfOrderIsNotCached() throws Exception {
+        final DelayedFirstApplier applier = new DelayedFirstApplier();
+        applier.addAccount(new Account("12345A", "Bank", "Holder", 1000));
+        final CachingAccountDAO accountDAO = new CachingAccountDAO(applier, 16);
+        accountDAO.getAccount("12345A");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the first apply commits, then returns its balance only after the second apply is done
+            Future<Long> first = executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return accountDAO.applyTransaction(new Date(), "12345A", ExpenseType.INCOME, 100);
+                }
+            });
+            applier.firstApplied.await(10, TimeUnit.SECONDS);
+            assertEquals(1300, accountDAO.applyTransaction(new Date(), "12345A", ExpenseType.INCOME, 200));
+            assertEquals(1100, (long) first.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1300, accountDAO.getAccount("12345A").getBalance());
+    }
+
+    @Test
+    public void appliedBalanceIsCached() throws Exception {
+        DelayedFirstApplier applier = new DelayedFirstApplier();
+        applier.addAccount(new Account("12345A", "Bank", "Holder", 1000));
+        applier.calls.set(1);
+        CachingAccountDAO accountDAO = new CachingAccountDAO(applier, 16);
+        accountDAO.getAccount("12345A");
+        accountDAO.applyTransaction(new Date(), "12345A", ExpenseType.EXPENSE, 400);
+        assertEquals(600, accountDAO.getAccount("12345A").getBalance());
+        assertEquals(1, accountDAO.getMissCount());
+        assertEquals(1, accountDAO.getHitCount());
+    }
+
+    /**
+     * Applies the transactions to the in-memory accounts, holding back the result of the first one until a second one
+     * is applied.
+     */
+    private static class DelayedFirstApplier extends InMemoryAccountDAO implements TransactionApplier {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch firstApplied = new CountDownLatch(1);
+        private final CountDownLatch secondApplied = new CountDownLatch(1);
+
+        @Override
+        public boolean canApplyTo(TransactionDAO transactionDAO) {
+            return true;
+        }
+
+        @Override
+        public long applyTransaction(Date date, String accountNo, ExpenseType expenseType, long amount)
+                throws InvalidAccountException {
+            long balance;
+            synchronized (this) {
+                updateBalance(accountNo, expenseType, amount);
+                balance = getAccount(accountNo).getBalance();
+            }
+            if (calls.incrementAndGet() == 1) {
+                firstApplied.countDown();
+                try {
+                    secondApplied.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                secondApplied.countDown();
+            }
+            return balance;
+        }
+
+        @Override
+        public void applyTransactions(List<Transaction> transactions) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.TransactionVisitor;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the columnar DAO past the growth of its columns, and the pages and ranges at the edges of the log.
+ */
+public class ColumnarTransactionDAOTest {
+    // more than the initial capacity of the columns, so that they grow twice
+    private static final int TRANSACTIONS = 3000;
+    private static final int FIRST_DAY = DateCodec.toEpochDay(2020, 1, 1);
+
+    private ColumnarTransactionDAO transactionDAO;
+
+    @Before
+    public void setUp() {
+        transactionDAO = new ColumnarTransactionDAO();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            transactionDAO.logTransaction(DateCodec.toDate(FIRST_DAY + i % 400), "A" + i % 5,
+                    i % 2 == 0 ? ExpenseType.EXPENSE : ExpenseType.INCOME, i);
+        }
+    }
+
+    @Test
+    public void columnsKeepEveryTransactionAsTheyGrow() {
+        assertEquals(TRANSACTIONS, transactionDAO.size());
+        List<Transaction> transactions = transactionDAO.getAllTransactionLogs();
+        assertEquals(TRANSACTIONS, transactions.size());
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            assertTransaction(i + 1, transactions.get(i));
+        }
+    }
+
+    @Test
+    public void pagesBeforeAnIdAreInInsertionOrder() {
+        List<Transaction> page = transactionDAO.getTransactionLogsBefore(101, 10);
+        assertEquals(10, page.size());
+        for (int i = 0; i < 10; i++) {
+            assertTransaction(91 + i, page.get(i));
+        }
+        List<Transaction> latest = transactionDAO.getPaginatedTransactionLogs(3);
+        assertEquals(3, latest.size());
+        assertTransaction(TRANSACTIONS, latest.get(2));
+    }
+
+    @Test
+    public void pagesAreCutAtTheEdgesOfTheLog() {
+        assertEquals(4, transactionDAO.getTransactionLogsBefore(5, 10).size());
+        assertTransaction(1, transactionDAO.getTransactionLogsBefore(5, 10).get(0));
+        assertTrue(transactionDAO.getTransactionLogsBefore(1, 10).isEmpty());
+        assertTrue(transactionDAO.getTransactionLogsBefore(Long.MIN_VALUE, 10).isEmpty());
+        assertTrue(transactionDAO.getTransactionLogsBefore(100, 0).isEmpty());
+        assertTrue(transactionDAO.getTransactionLogsBefore(100, -1).isEmpty());
+        List<Transaction> page = transactionDAO.getTransactionLogsBefore(Long.MAX_VALUE, 2);
+        assertTransaction(TRANSACTIONS - 1, page.get(0));
+        assertTransaction(TRANSACTIONS, page.get(1));
+    }
+
+    @Test
+    public void rangesAreCutAtTheEdgesOfTheLog() {
+        assertEquals(ids(1, TRANSACTIONS + 1), visit(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(ids(1, TRANSACTIONS + 1), visit(0, TRANSACTIONS + 1));
+        assertEquals(ids(1, 4), visit(-5, 4));
+        assertEquals(ids(TRANSACTIONS - 1, TRANSACTIONS + 1), visit(TRANSACTIONS - 1, TRANSACTIONS + 50));
+        assertEquals(ids(500, 1000), visit(500, 1000));
+        assertTrue(visit(TRANSACTIONS + 1, TRANSACTIONS + 10).isEmpty());
+        assertTrue(visit(10, 10).isEmpty());
+        assertTrue(visit(10, 5).isEmpty());
+        assertTrue(visit(Long.MIN_VALUE, 1).isEmpty());
+    }
+
+    @Test
+    public void visitorCanStopTheRange() {
+        final List<Long> visited = new ArrayList<>();
+        transactionDAO.visitTransactionLogs(10, 100, new TransactionVisitor() {
+            @Override
+            public boolean visit(Transaction transaction) {
+                visited.add(transaction.getTransactionId());
+                return visited.size() < 3;
+            }
+        });
+        assertEquals(ids(10, 13), visited);
+    }
+
+    @Test(timeout = 30000)
+    public void logsWhileARangeIsVisited() throws Exception {
+        final CountDownLatch visiting = new CountDownLatch(1);
+        final CountDownLatch logged = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the visitor waits inside the visit until a transaction is logged from the test thread
+            Future<Integer> visited = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    final int[] count = new int[1];
+                    final boolean[] unblocked = new boolean[1];
+                    transactionDAO.visitTransactionLogs(new TransactionVisitor() {
+                        @Override
+                        public boolean visit(Transaction transaction) {
+                            if (count[0]++ == 0) {
+                                visiting.countDown();
+                                try {
+                                    unblocked[0] = logged.await(5, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            }
+                            return true;
+                        }
+                    });
+                    return unblocked[0] ? count[0] : -1;
+                }
+            });
+            assertTrue(visiting.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < TRANSACTIONS; i++) {
+                transactionDAO.logTransaction(new Date(), "B", ExpenseType.EXPENSE, 1);
+            }
+            logged.countDown();
+            // the visit sees the rows logged before it started, even though the columns grew meanwhile
+            assertEquals(TRANSACTIONS, (int) visited.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2 * TRANSACTIONS, transactionDAO.size());
+    }
+
+    private List<Long> visit(long fromId, long toId) {
+        final List<Long> visited = new ArrayList<>();
+        transactionDAO.visitTransactionLogs(fromId, toId, new TransactionVisitor() {
+            @Override
+            public boolean visit(Transaction transaction) {
+                visited.add(transaction.getTransactionId());
+                return true;
+            }
+        });
+        return visited;
+    }
+
+    private static List<Long> ids(long fromId, long toId) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = fromId; id < toId; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static void assertTransaction(long id, Transaction transaction) {
+        int i = (int) id - 1;
+        assertEquals(id, transaction.getTransactionId());
+        assertEquals(DateCodec.toDate(FIRST_DAY + i % 400), transaction.getDate());
+        assertEquals("A" + i % 5, transaction.getAccountNo());
+        assertEquals(i % 2 == 0 ? ExpenseType.EXPENSE : ExpenseType.INCOME, transaction.getExpenseType());
+        assertEquals(i, transaction.getAmount());
+    }
+}
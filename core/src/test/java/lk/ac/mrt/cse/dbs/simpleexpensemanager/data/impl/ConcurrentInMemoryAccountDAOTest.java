@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stress test which posts to the same few accounts from many threads at once and checks that no update is lost.
+ */
+public class ConcurrentInMemoryAccountDAOTest {
+    private static final int THREADS = 8;
+    private static final int ACCOUNTS = 4;
+    private static final int POSTINGS_PER_THREAD = 20000;
+    private static final long INITIAL_BALANCE = 100000;
+
+    @Test
+    public void concurrentPostingsAreNotLost() throws Exception {
+        final ConcurrentInMemoryAccountDAO accountDAO = new ConcurrentInMemoryAccountDAO();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountDAO.addAccount(new Account(accountNo(i), "Bank", "Holder " + i, INITIAL_BALANCE));
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            results.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    for (int i = 0; i < POSTINGS_PER_THREAD; i++) {
+                        String accountNo = accountNo((thread + i) % ACCOUNTS);
+                        // every thread adds 125 cents and takes 50 cents on each posting pair
+                        accountDAO.updateBalance(accountNo, ExpenseType.INCOME, 125);
+                        accountDAO.updateBalance(accountNo, ExpenseType.EXPENSE, 50);
+                    }
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Void> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // each account receives the same number of posting pairs
+        int pairsPerAccount = THREADS * POSTINGS_PER_THREAD / ACCOUNTS;
+        long expected = INITIAL_BALANCE + pairsPerAccount * 75L;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            assertEquals(expected, accountDAO.getAccount(accountNo(i)).getBalance());
+        }
+    }
+
+    private static String accountNo(int index) {
+        return "ACC" + index;
+    }
+}
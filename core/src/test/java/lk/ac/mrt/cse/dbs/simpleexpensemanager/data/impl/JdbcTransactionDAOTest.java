@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.DuplicateAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MonthlySummary;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the JDBC DAOs against the in-memory ones on an in-memory SQLite database.
+ */
+public class JdbcTransactionDAOTest {
+    private static final String[] ACCOUNTS = {"12345A", "78945Z", "55555B"};
+
+    private JdbcDatabase database;
+    private JdbcAccountDAO accountDAO;
+    private JdbcTransactionDAO transactionDAO;
+    private InMemoryTransactionDAO expectedDAO;
+
+    @Before
+    public void setUp() throws Exception {
+        database = new JdbcDatabase("jdbc:sqlite::memory:");
+        accountDAO = new JdbcAccountDAO(database);
+        transactionDAO = new JdbcTransactionDAO(database);
+        expectedDAO = new InMemoryTransactionDAO();
+        for (String accountNo : ACCOUNTS) {
+            accountDAO.addAccount(new Account(accountNo, "Bank", "Holder", 1000000));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    public void logsAndQueriesMatchInMemory() throws Exception {
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Date date = DateCodec.toDate(DateCodec.toEpochDay(2022, 1 + i % 12, 1 + i % 28));
+            ExpenseType expenseType = i % 3 == 0 ? ExpenseType.INCOME : ExpenseType.EXPENSE;
+            String accountNo = ACCOUNTS[i % ACCOUNTS.length];
+            if (i < 150) {
+                transactionDAO.logTransaction(date, accountNo, expenseType, 100 + i);
+            } else {
+                batch.add(new Transaction(date, accountNo, expenseType, 100 + i));
+            }
+            expectedDAO.logTransaction(date, accountNo, expenseType, 100 + i);
+        }
+        transactionDAO.logTransactions(batch);
+
+        assertSameTransactions(expectedDAO.getAllTransactionLogs(), transactionDAO.getAllTransactionLogs());
+        assertSameTransactions(expectedDAO.getPaginatedTransactionLogs(20),
+                transactionDAO.getPaginatedTransactionLogs(20));
+        assertSameTransactions(expectedDAO.getTransactionsForAccount(ACCOUNTS[1]),
+                transactionDAO.getTransactionsForAccount(ACCOUNTS[1]));
+        Date from = DateCodec.toDate(DateCodec.toEpochDay(2022, 3, 1));
+        Date to = DateCodec.toDate(DateCodec.toEpochDay(2022, 5, 31));
+        assertSameTransactions(expectedDAO.getTransactionsBetween(from, to),
+                transactionDAO.getTransactionsBetween(from, to));
+        assertSameTransactions(expectedDAO.getTransactionsForAccountBetween(ACCOUNTS[2], from, to),
+                transactionDAO.getTransactionsForAccountBetween(ACCOUNTS[2], from, to));
+
+        for (String accountNo : ACCOUNTS) {
+            List<MonthlySummary> expected = expectedDAO.getMonthlySummary(accountNo);
+            List<MonthlySummary> actual = transactionDAO.getMonthlySummary(accountNo);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getYear(), actual.get(i).getYear());
+                assertEquals(expected.get(i).getMonth(), actual.get(i).getMonth());
+                assertEquals(expected.get(i).getExpenseType(), actual.get(i).getExpenseType());
+                assertEquals(expected.get(i).getTotal(), actual.get(i).getTotal());
+                assertEquals(expected.get(i).getCount(), actual.get(i).getCount());
+            }
+        }
+    }
+
+    @Test
+    public void applyTransactionUpdatesBalanceAndLog() throws Exception {
+        assertTrue(accountDAO.canApplyTo(transactionDAO));
+        long balance = accountDAO.applyTransaction(new Date(), ACCOUNTS[0], ExpenseType.EXPENSE, 2500);
+        assertEquals(1000000 - 2500, balance);
+        assertEquals(balance, accountDAO.getAccount(ACCOUNTS[0]).getBalance());
+        assertEquals(1, transactionDAO.getTransactionsForAccount(ACCOUNTS[0]).size());
+
+        // the amount is not less than the balance, so nothing changes
+        accountDAO.applyTransaction(new Date(), ACCOUNTS[0], ExpenseType.EXPENSE, 5000000);
+        assertEquals(balance, accountDAO.getAccount(ACCOUNTS[0]).getBalance());
+        assertEquals(1, transactionDAO.getAllTransactionLogs().size());
+    }
+
+    @Test(expected = InvalidAccountException.class)
+    public void removeAccountDeletesItsTransactions() throws Exception {
+        accountDAO.applyTransaction(new Date(), ACCOUNTS[1], ExpenseType.INCOME, 100);
+        accountDAO.applyTransaction(new Date(), ACCOUNTS[2], ExpenseType.INCOME, 100);
+        accountDAO.removeAccount(ACCOUNTS[1]);
+        assertEquals(1, transactionDAO.getAllTransactionLogs().size());
+        assertTrue(transactionDAO.getMonthlySummary(ACCOUNTS[1]).isEmpty());
+        accountDAO.getAccount(ACCOUNTS[1]);
+    }
+
+    private static void assertSameTransactions(List<Transaction> expected, List<Transaction> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getDate(), actual.get(i).getDate());
+            assertEquals(expected.get(i).getAccountNo(), actual.get(i).getAccountNo());
+            assertEquals(expected.get(i).getExpenseType(), actual.get(i).getExpenseType());
+            assertEquals(expected.get(i).getAmount(), actual.get(i).getAmount());
+        }
+    }
+
+    @Test
+    public void duplicateAccountIsRefused() throws Exception {
+        try {
+            accountDAO.addAccount(new Account(ACCOUNTS[0], "Other Bank", "Other Holder", 5));
+            fail();
+        } catch (DuplicateAccountException e) {
+            // expected, and the stored account is kept
+        }
+        assertEquals("Bank", accountDAO.getAccount(ACCOUNTS[0]).getBankName());
+        assertEquals(1000000, accountDAO.getAccount(ACCOUNTS[0]).getBalance());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.exception.InvalidAccountException;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Account;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.MethodMetrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the metrics decorators and the histogram behind them.
+ */
+public class MetricsAccountDAOTest {
+
+    @Test
+    public void callsAndErrorsAreCounted() throws Exception {
+        MetricsAccountDAO accountDAO = new MetricsAccountDAO(new InMemoryAccountDAO());
+        accountDAO.addAccount(new Account("12345A", "Bank", "Holder", 1000));
+        accountDAO.getAccount("12345A");
+        try {
+            accountDAO.getAccount("unknown");
+            fail();
+        } catch (InvalidAccountException e) {
+            // expected, and counted as an error
+        }
+        MethodMetrics getAccount = find(accountDAO, "AccountDAO.getAccount");
+        assertEquals(2, getAccount.getCallCount());
+        assertEquals(1, getAccount.getErrorCount());
+        assertTrue(getAccount.getP50Nanos() <= getAccount.getMaxNanos());
+        assertEquals(1, find(accountDAO, "AccountDAO.addAccount").getCallCount());
+        assertEquals(0, find(accountDAO, "AccountDAO.updateBalance").getCallCount());
+    }
+
+    @Test
+    public void appliesThroughMeasuredTransactionDAO() throws Exception {
+        JdbcDatabase database = new JdbcDatabase("jdbc:sqlite::memory:");
+        try {
+            MetricsAccountDAO accountDAO = new MetricsAccountDAO(new JdbcAccountDAO(database));
+            MetricsTransactionDAO transactionDAO = new MetricsTransactionDAO(new JdbcTransactionDAO(database));
+            assertTrue(accountDAO.canApplyTo(transactionDAO));
+            accountDAO.addAccount(new Account("12345A", "Bank", "Holder", 1000));
+            assertEquals(900, accountDAO.applyTransaction(new Date(), "12345A", ExpenseType.EXPENSE, 100));
+            assertEquals(1, transactionDAO.getAllTransactionLogs().size());
+            assertEquals(1, find(accountDAO, "TransactionApplier.applyTransaction").getCallCount());
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketWidth() {
+        LatencyRecorder recorder = new LatencyRecorder("test");
+        for (long nanos = 1; nanos <= 100000; nanos++) {
+            recorder.record(nanos, false);
+        }
+        MethodMetrics metrics = recorder.snapshot();
+        assertEquals(100000, metrics.getCallCount());
+        assertEquals(100000, metrics.getMaxNanos());
+        assertWithinEighth(50000, metrics.getP50Nanos());
+        assertWithinEighth(95000, metrics.getP95Nanos());
+        assertWithinEighth(99000, metrics.getP99Nanos());
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        for (long nanos : new long[]{0, 1, 7, 8, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = LatencyRecorder.bucketOf(nanos);
+            assertTrue(nanos <= LatencyRecorder.highestValueOf(bucket));
+            assertTrue(bucket == 0 || nanos > LatencyRecorder.highestValueOf(bucket - 1));
+        }
+    }
+
+    private static void assertWithinEighth(long expected, long actual) {
+        assertTrue(actual + " is not close to " + expected,
+                actual >= expected && actual <= expected + expected / 8);
+    }
+
+    private static MethodMetrics find(MetricsAccountDAO accountDAO, String methodName) {
+        for (MethodMetrics metrics : accountDAO.getMetrics()) {
+            if (metrics.getMethodName().equals(methodName)) {
+                return metrics;
+            }
+        }
+        throw new AssertionError(methodName);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Department of Computer Science and Engineering, University of Moratuwa.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *                  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package lk.ac.mrt.cse.dbs.simpleexpensemanager.data.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.ExpenseType;
+import lk.ac.mrt.cse.dbs.simpleexpensemanager.data.model.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the windowed view reads each row once while it stays in the window, and again once it is dropped.
+ */
+public class WindowedTransactionLogViewTest {
+    private static final int ROWS = 1000;
+    private static final int WINDOW = 8;
+
+    @Test
+    public void rowsAreReadOnlyWhenAskedFor() {
+        CountingView view = new CountingView(ROWS, WINDOW);
+        assertEquals(ROWS, view.size());
+        assertTrue(view.reads.isEmpty());
+        assertEquals(500, view.get(499).getTransactionId());
+        assertEquals(1, view.reads.size());
+    }
+
+    @Test
+    public void rowsInTheWindowAreNotReadAgain() {
+        CountingView view = new CountingView(ROWS, WINDOW);
+        List<Transaction> first = new ArrayList<>();
+        for (int i = 0; i < WINDOW; i++) {
+            first.add(view.get(i));
+        }
+        for (int i = WINDOW - 1; i >= 0; i--) {
+            assertSame(first.get(i), view.get(i));
+        }
+        assertEquals(WINDOW, view.reads.size());
+    }
+
+    @Test
+    public void rowDroppedFromTheWindowIsReadAgain() {
+        CountingView view = new CountingView(ROWS, WINDOW);
+        Transaction transaction = view.get(3);
+        // both positions map to the same slot
+        assertEquals(3 + WINDOW + 1, view.get(3 + WINDOW).getTransactionId());
+        Transaction again = view.get(3);
+        assertNotSame(transaction, again);
+        assertEquals(4, again.getTransactionId());
+        assertEquals(3, view.reads.size());
+    }
+
+    @Test
+    public void scrollingBackwardsReadsEachRowOnce() {
+        CountingView view = new CountingView(ROWS, WINDOW);
+        for (int i = ROWS - 1; i >= 0; i--) {
+            assertEquals(i + 1, view.get(i).getTransactionId());
+            // a row bound twice in a row, as by a list redrawing its visible rows
+            view.get(Math.min(ROWS - 1, i + 1));
+        }
+        assertEquals(ROWS, view.reads.size());
+    }
+
+    @Test
+    public void indexOutsideTheViewIsRefused() {
+        CountingView view = new CountingView(ROWS, WINDOW);
+        for (int index : new int[]{-1, ROWS}) {
+            try {
+                view.get(index);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+        assertTrue(new CountingView(0, WINDOW).isEmpty());
+    }
+
+    @Test
+    public void closedViewReleasesOnceAndRefusesReads() {
+        CountingView view = new CountingView(ROWS, WINDOW);
+        view.get(0);
+        view.close();
+        view.close();
+        assertEquals(1, view.releases);
+        assertEquals(ROWS, view.size());
+        try {
+            view.get(0);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Makes up the row at each position, and records the positions read.
+     */
+    private static class CountingView extends WindowedTransactionLogView {
+        private final List<Integer> reads = new ArrayList<>();
+        private int releases;
+
+        CountingView(int size, int windowSize) {
+            super(size, windowSize);
+        }
+
+        @Override
+        protected Transaction readRow(int position) {
+            reads.add(position);
+            Transaction transaction = new Transaction(new Date(), "12345A", ExpenseType.EXPENSE, position);
+            transaction.setTransactionId(position + 1);
+            return transaction;
+        }
+
+        @Override
+        protected void release() {
+            releases++;
+        }
+    }
+}